@@ -0,0 +1,39 @@
+package com.olivecrm.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+@Configuration
+public class CsvImportConfig {
+
+    // Number of threads parsing and validating CSV chunks; 0 means one per core
+    @Value("${csv.import.parser-threads:0}")
+    private int parserThreads;
+
+    // Number of background import jobs that may run at the same time
+    @Value("${csv.import.job-threads:1}")
+    private int jobThreads;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService csvParseExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("csv-parse-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(getParserThreads(), threadFactory);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService csvImportJobExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("csv-import-job-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(Math.max(1, jobThreads), threadFactory);
+    }
+
+    public int getParserThreads() {
+        return parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,34 @@
+package com.olivecrm.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Connector/J sends a JDBC batch as one INSERT round trip per row unless
+    // rewriteBatchedStatements is set; with it, each batch goes out as a single
+    // multi-row INSERT. Set on the pool here so it does not depend on every
+    // environment's datasource URL; a URL that sets the flag itself wins.
+    @Bean
+    public static BeanPostProcessor mysqlBatchRewriteConfigurer(
+            @Value("${csv.import.rewrite-batched-statements:true}") boolean rewriteBatchedStatements) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    HikariDataSource dataSource = (HikariDataSource) bean;
+                    String url = dataSource.getJdbcUrl();
+                    if (url != null && url.startsWith("jdbc:mysql:") && !url.contains("rewriteBatchedStatements")) {
+                        dataSource.addDataSourceProperty("rewriteBatchedStatements",
+                                String.valueOf(rewriteBatchedStatements));
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
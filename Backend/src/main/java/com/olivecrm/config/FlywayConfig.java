@@ -0,0 +1,18 @@
+package com.olivecrm.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer baselineCustomizer() {
+        // Databases created by ddl-auto before migrations existed already hold the
+        // V1 schema: record them as version 1 and apply only the later migrations
+        return configuration -> configuration
+                .baselineOnMigrate(true)
+                .baselineVersion("1");
+    }
+}
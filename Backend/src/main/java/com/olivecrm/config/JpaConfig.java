@@ -0,0 +1,44 @@
+package com.olivecrm.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    @Value("${csv.import.jdbc-batch-size:100}")
+    private int jdbcBatchSize;
+
+    @Value("${jpa.cache.statistics:true}")
+    private boolean cacheStatistics;
+
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer() {
+        return hibernateProperties -> {
+            // Group inserts/updates per table so CSV imports go out as JDBC
+            // batches instead of one statement per entity
+            hibernateProperties.putIfAbsent("hibernate.jdbc.batch_size", jdbcBatchSize);
+            hibernateProperties.putIfAbsent("hibernate.order_inserts", true);
+            hibernateProperties.putIfAbsent("hibernate.order_updates", true);
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return hibernateProperties -> {
+            // Entities marked @Cacheable (Customer, Product) and queries with the cacheable
+            // hint are kept in Ehcache; regions and their limits are in ehcache.xml
+            hibernateProperties.putIfAbsent("hibernate.cache.use_second_level_cache", true);
+            hibernateProperties.putIfAbsent("hibernate.cache.use_query_cache", true);
+            hibernateProperties.putIfAbsent("hibernate.cache.region.factory_class", "jcache");
+            hibernateProperties.putIfAbsent("hibernate.javax.cache.provider",
+                    "org.ehcache.jsr107.EhcacheCachingProvider");
+            hibernateProperties.putIfAbsent("hibernate.javax.cache.uri", "ehcache.xml");
+            hibernateProperties.putIfAbsent("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+            // Hit/miss counters behind GET /api/cache/stats
+            hibernateProperties.putIfAbsent("hibernate.generate_statistics", cacheStatistics);
+        };
+    }
+}
@@ -1,15 +1,47 @@
 package com.olivecrm.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig {
 
+    // Streamed responses (the CSV export) run as async requests; the servlet
+    // container's default timeout of 30 s would cut large exports short
+    @Value("${web.async.timeout-ms:3600000}")
+    private long asyncTimeoutMs;
+
+    // Number of streamed responses written at the same time; more wait
+    @Value("${web.async.threads:4}")
+    private int asyncThreads;
+
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncThreads);
+        executor.setMaxPoolSize(asyncThreads);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    @Bean
+    public WebMvcConfigurer asyncConfigurer(ThreadPoolTaskExecutor mvcAsyncExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setDefaultTimeout(asyncTimeoutMs);
+                configurer.setTaskExecutor(mvcAsyncExecutor);
+            }
+        };
+    }
+
     @Bean
     public WebMvcConfigurer corsConfigurer() {
         return new WebMvcConfigurer() {
@@ -0,0 +1,21 @@
+package com.olivecrm.controller;
+
+import com.olivecrm.dto.CacheStatisticsDTO;
+import com.olivecrm.service.EntityCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CacheController {
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStatisticsDTO> getStatistics() {
+        return ResponseEntity.ok(entityCacheService.getStatistics());
+    }
+}
@@ -1,5 +1,7 @@
 package com.olivecrm.controller;
 
+import com.olivecrm.dto.CsvValidationReportDTO;
+import com.olivecrm.enums.CsvImportLayout;
 import com.olivecrm.service.CsvProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,13 +23,14 @@ public class CsvUploadController {
     private CsvProcessingService csvProcessingService;
 
     @PostMapping("/api/upload-csv")
-    public ResponseEntity<String> uploadCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<String> uploadCsv(@RequestParam("file") MultipartFile file,
+                                            @RequestParam(defaultValue = "false") boolean idempotent) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("Please select a CSV file to upload.");
         }
 
         try {
-            csvProcessingService.processCsvFile(file.getInputStream());
+            csvProcessingService.processCsvFile(file.getInputStream(), idempotent);
             return ResponseEntity.ok("CSV file processed successfully.");
         } catch (IOException e) {
             logger.error("Failed to read CSV file: " + e.getMessage(), e);
@@ -41,14 +44,22 @@ public class CsvUploadController {
         }
     }
 
+    // With namesOnly set, only the names and zipcodes of existing customers are updated; unknown
+    // customer ids are skipped and no customers, products or orders are created
     @PostMapping("/api/upload-customer-names-csv")
-    public ResponseEntity<String> uploadCustomerNamesCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<String> uploadCustomerNamesCsv(@RequestParam("file") MultipartFile file,
+                                                         @RequestParam(defaultValue = "false") boolean idempotent,
+                                                         @RequestParam(defaultValue = "false") boolean namesOnly) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("Please select a CSV file to upload.");
         }
 
         try {
-            csvProcessingService.processCustomerNamesCsv(file.getInputStream());
+            if (namesOnly) {
+                int customers = csvProcessingService.enrichCustomerNames(file.getInputStream());
+                return ResponseEntity.ok("Customer names CSV file processed successfully. Customers updated: " + customers);
+            }
+            csvProcessingService.processCustomerNamesCsv(file.getInputStream(), idempotent);
             return ResponseEntity.ok("Customer names CSV file processed successfully.");
         } catch (IOException e) {
             logger.error("Failed to read customer names CSV file: " + e.getMessage(), e);
@@ -61,4 +72,28 @@ public class CsvUploadController {
             return ResponseEntity.internalServerError().body("Failed to process CSV file. Error: " + e.getMessage() + ". Please check the server logs for more details.");
         }
     }
+
+    // Dry run: parses and validates the whole file without writing anything
+    @PostMapping("/api/validate-csv")
+    public ResponseEntity<?> validateCsv(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(defaultValue = "SALES") CsvImportLayout layout,
+                                         @RequestParam(defaultValue = "100") int maxErrors) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Please select a CSV file to upload.");
+        }
+
+        try {
+            CsvValidationReportDTO report = csvProcessingService.validateCsv(file.getInputStream(), layout, maxErrors);
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            logger.error("Failed to read CSV file: " + e.getMessage(), e);
+            return ResponseEntity.internalServerError().body("Failed to read CSV file: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid data in CSV file: " + e.getMessage(), e);
+            return ResponseEntity.badRequest().body("Invalid data in CSV file: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Failed to validate CSV file: " + e.getMessage(), e);
+            return ResponseEntity.internalServerError().body("Failed to validate CSV file. Error: " + e.getMessage() + ". Please check the server logs for more details.");
+        }
+    }
 }
@@ -0,0 +1,129 @@
+package com.olivecrm.controller;
+
+import com.olivecrm.dto.IngestMetricsDTO;
+import com.olivecrm.entity.ImportJob;
+import com.olivecrm.entity.QuarantinedRow;
+import com.olivecrm.enums.CsvImportLayout;
+import com.olivecrm.service.ImportJobService;
+import com.olivecrm.service.IngestMetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/import-jobs")
+public class ImportJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobController.class);
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private IngestMetricsRegistry ingestMetricsRegistry;
+
+    // Accepts the upload and returns immediately; poll GET /api/import-jobs/{id} for progress
+    @PostMapping
+    public ResponseEntity<?> submitImportJob(@RequestParam("file") MultipartFile file,
+                                             @RequestParam(defaultValue = "SALES") CsvImportLayout layout,
+                                             @RequestParam(defaultValue = "false") boolean idempotent,
+                                             @RequestParam(defaultValue = "false") boolean bulk,
+                                             @RequestParam(defaultValue = "false") boolean quarantine) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Please select a CSV file to upload.");
+        }
+
+        try {
+            ImportJob job = importJobService.submit(file, layout, idempotent, bulk, quarantine);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Failed to store CSV file for import: " + e.getMessage(), e);
+            return ResponseEntity.internalServerError().body("Failed to read CSV file: " + e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportJob>> getRecentImportJobs() {
+        return ResponseEntity.ok(importJobService.getRecentJobs());
+    }
+
+    // Live metrics of running imports (jobs and direct uploads) followed by the latest finished ones
+    @GetMapping("/metrics")
+    public ResponseEntity<List<IngestMetricsDTO>> getIngestMetrics() {
+        return ResponseEntity.ok(ingestMetricsRegistry.snapshots());
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable long jobId) {
+        return importJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<?> resumeImportJob(@PathVariable long jobId) {
+        try {
+            return ResponseEntity.ok(importJobService.resume(jobId));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{jobId}/quarantine")
+    public ResponseEntity<List<QuarantinedRow>> getQuarantinedRows(@PathVariable long jobId) {
+        return ResponseEntity.ok(importJobService.getQuarantinedRows(jobId));
+    }
+
+    // Error CSV of the rejected rows, to be fixed and sent back to /quarantine/resubmit
+    @GetMapping("/{jobId}/quarantine/csv")
+    public ResponseEntity<byte[]> exportQuarantinedRows(@PathVariable long jobId) throws IOException {
+        try {
+            byte[] csvBytes = importJobService.exportQuarantinedRows(jobId);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType("text/csv"));
+            headers.setContentDispositionFormData("attachment", "import_job_" + jobId + "_errors.csv");
+            headers.setContentLength(csvBytes.length);
+            return ResponseEntity.ok().headers(headers).body(csvBytes);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{jobId}/quarantine/resubmit")
+    public ResponseEntity<?> resubmitQuarantinedRows(@PathVariable long jobId,
+                                                     @RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Please select a CSV file to upload.");
+        }
+
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobService.resubmitQuarantine(jobId, file));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Failed to store CSV file for import: " + e.getMessage(), e);
+            return ResponseEntity.internalServerError().body("Failed to read CSV file: " + e.getMessage());
+        }
+    }
+}
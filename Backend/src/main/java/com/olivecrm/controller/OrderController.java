@@ -1,15 +1,14 @@
 package com.olivecrm.controller;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,13 +21,24 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.olivecrm.dto.CursorPageDTO;
 import com.olivecrm.dto.CustomerSegmentDTO;
+import com.olivecrm.dto.DailySalesDTO;
 import com.olivecrm.dto.OrderCreateDTO;
+import com.olivecrm.dto.OrderFilterParams;
+import com.olivecrm.dto.OrderRowDTO;
+import com.olivecrm.dto.OrderValueDistributionDTO;
 import com.olivecrm.dto.ProductPurchaseHistoryDTO;
+import com.olivecrm.dto.SalesTimeSeriesPointDTO;
 import com.olivecrm.dto.TopProductDTO;
 import com.olivecrm.entity.Order;
+import com.olivecrm.enums.OrderValueGrouping;
+import com.olivecrm.enums.TimeBucket;
+import com.olivecrm.service.OrderExportService;
 import com.olivecrm.service.OrderService;
+import com.olivecrm.service.OrderValueDistributionService;
 import com.olivecrm.service.OrderService.SalesMetrics;
 
 @RestController
@@ -40,6 +50,10 @@ public class OrderController {
 
     @Autowired private OrderService orderService;
 
+    @Autowired private OrderValueDistributionService orderValueDistributionService;
+
+    @Autowired private OrderExportService orderExportService;
+
     @DeleteMapping("/{orderId}")
     public ResponseEntity<Void> deleteOrder(@PathVariable Integer orderId) {
         logger.info("Received request to delete order with ID: {}", orderId);
@@ -74,6 +88,27 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // Flat order rows with the customer name and product fields inlined, read with one
+    // joined query per page
+    @GetMapping("/rows")
+    public ResponseEntity<Page<OrderRowDTO>> getAllOrderRows(Pageable pageable) {
+        return ResponseEntity.ok(orderService.getOrderRows(pageable));
+    }
+
+    // Keyset pagination, newest first. Pass nextCursor/prevCursor back as cursor; the total
+    // is only counted when includeTotal is set.
+    @GetMapping("/seek")
+    public ResponseEntity<?> getAllOrdersByCursor(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size,
+        @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(orderService.getAllOrders(cursor, size, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/customer/{customerId}/top-products")
     public ResponseEntity<List<TopProductDTO>>
     getTopThreeProducts(@PathVariable Integer customerId) {
@@ -118,53 +153,14 @@ public class OrderController {
     }
 
     @GetMapping("/filter")
-    public ResponseEntity<Page<Order>> getOrdersByFilters(
-        @RequestParam(required = false) Integer customerId,
-        @RequestParam(required = false) String salesType,
-        @RequestParam(required = false) String totalCost,
-        @RequestParam(required = false) List<Integer> productIds,
-        @RequestParam(required = false) String dateFilterType,
-        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd")
-        LocalDate singleDate,
-        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd")
-        LocalDate startDate,
-        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd")
-        LocalDate endDate, Pageable pageable) {
-
-        logger.info(
-            "Received filter request - dateFilterType: {}, singleDate: {}, startDate: {}, endDate: {}, productIds: {}, totalCost: {}",
-            dateFilterType, singleDate, startDate, endDate, productIds, totalCost);
-
-        Double parsedTotalCost = null;
-        if (totalCost != null && !totalCost.isEmpty()) {
-            try {
-                parsedTotalCost = Double.parseDouble(totalCost.replace("$", "").trim());
-            } catch (NumberFormatException e) {
-                logger.warn("Invalid totalCost format: {}", totalCost);
-            }
-        }
+    public ResponseEntity<Page<Order>> getOrdersByFilters(OrderFilterParams filters, Pageable pageable) {
+        logger.info("Received filter request - {}", filters);
 
         Page<Order> orders;
         try {
-            if ("single".equals(dateFilterType) && singleDate != null) {
-                logger.info("Applying single date filter for date: {}",
-                            singleDate);
-                orders = orderService.getOrdersByFilters(customerId, salesType,
-                                                         parsedTotalCost, productIds, singleDate,
-                                                         null, null, pageable);
-            } else if ("range".equals(dateFilterType) && startDate != null &&
-                       endDate != null) {
-                logger.info("Applying date range filter from {} to {}",
-                            startDate, endDate);
-                orders = orderService.getOrdersByFilters(
-                    customerId, salesType, parsedTotalCost, productIds, null, startDate, endDate,
-                    pageable);
-            } else {
-                logger.info("No date filtering applied");
-                orders = orderService.getOrdersByFilters(customerId, salesType, parsedTotalCost,
-                                                         productIds, null, null,
-                                                         null, pageable);
-            }
+            orders = orderService.getOrdersByFilters(filters.getCustomerId(), filters.getSalesType(),
+                    totalCost(filters), filters.getProductIds(), filters.effectiveSingleDate(),
+                    filters.effectiveStartDate(), filters.effectiveEndDate(), pageable);
 
             logger.info("Filter query returned {} results",
                         orders.getContent().size());
@@ -180,33 +176,44 @@ public class OrderController {
         }
     }
 
-    @GetMapping("/metrics")
-    public ResponseEntity<SalesMetrics> getMetrics(
-            @RequestParam(required = false) Integer customerId,
-            @RequestParam(required = false) String salesType,
-            @RequestParam(required = false) List<Integer> productIds,
-            @RequestParam(required = false) String dateFilterType,
-            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate singleDate,
-            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
-
-        logger.info("Getting metrics with parameters - customerId: {}, salesType: {}, productIds: {}, dateFilterType: {}, singleDate: {}, startDate: {}, endDate: {}", 
-                   customerId, salesType, productIds, dateFilterType, singleDate, startDate, endDate);
-
-        LocalDate effectiveStartDate = null;
-        LocalDate effectiveEndDate = null;
-
-        if ("single".equals(dateFilterType) && singleDate != null) {
-            effectiveStartDate = singleDate;
-            effectiveEndDate = singleDate;
-            logger.info("Using single date filter: {}", effectiveStartDate);
-        } else if ("range".equals(dateFilterType) && startDate != null && endDate != null) {
-            effectiveStartDate = startDate;
-            effectiveEndDate = endDate;
-            logger.info("Using date range filter: {} to {}", effectiveStartDate, effectiveEndDate);
+    // Flat row variant of /filter, taking the same filters
+    @GetMapping("/filter/rows")
+    public ResponseEntity<Page<OrderRowDTO>> getOrderRowsByFilters(OrderFilterParams filters, Pageable pageable) {
+        Page<OrderRowDTO> orders = orderService.getOrderRowsByFilters(filters.getCustomerId(), filters.getSalesType(),
+                totalCost(filters), filters.getProductIds(), filters.effectiveSingleDate(),
+                filters.effectiveStartDate(), filters.effectiveEndDate(), pageable);
+        if (orders.isEmpty()) {
+            return ResponseEntity.noContent().build();
         }
+        return ResponseEntity.ok(orders);
+    }
 
-        SalesMetrics metrics = orderService.getMetrics(customerId, salesType, productIds, effectiveStartDate, effectiveEndDate);
+    // Keyset paginated variant of /filter, taking the same filters
+    @GetMapping("/filter/seek")
+    public ResponseEntity<?> getOrdersByFiltersByCursor(
+        OrderFilterParams filters,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size,
+        @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            CursorPageDTO<OrderRowDTO> orders = orderService.getOrdersByFilters(filters.getCustomerId(),
+                    filters.getSalesType(), totalCost(filters), filters.getProductIds(),
+                    filters.effectiveSingleDate(), filters.effectiveStartDate(), filters.effectiveEndDate(),
+                    cursor, size, includeTotal);
+            return ResponseEntity.ok(orders);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // The metrics endpoints take the /filter filters except totalCost, and a single date
+    // as a one-day range
+    @GetMapping("/metrics")
+    public ResponseEntity<SalesMetrics> getMetrics(OrderFilterParams filters) {
+        logger.info("Getting metrics with parameters - {}", filters);
+
+        SalesMetrics metrics = orderService.getMetrics(filters.getCustomerId(), filters.getSalesType(),
+                filters.getProductIds(), filters.rangeStart(), filters.rangeEnd());
         
         logger.info("Metrics result - totalSales: {}, totalAmount: {}, averageOrderValue: {}", 
                    metrics.getTotalSales(), metrics.getTotalAmount(), metrics.getAverageOrderValue());
@@ -214,70 +221,118 @@ public class OrderController {
         return ResponseEntity.ok(metrics);
     }
 
-    @GetMapping("/export/csv")
-    public ResponseEntity<byte[]> exportOrdersToCSV(
-        @RequestParam(required = false) Integer customerId,
-        @RequestParam(required = false) String salesType,
-        @RequestParam(required = false) List<Integer> productIds,
-        @RequestParam(required = false) String dateFilterType,
-        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd")
-        LocalDate singleDate,
-        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd")
-        LocalDate startDate,
-        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd")
-        LocalDate endDate) {
-
-        logger.info("Received CSV export request with filters");
+    // Daily order count, units and revenue for the same filters as /metrics, served from
+    // the daily rollup unless a customer is given
+    @GetMapping("/metrics/daily")
+    public ResponseEntity<List<DailySalesDTO>> getDailySales(OrderFilterParams filters) {
+        return ResponseEntity.ok(orderService.getDailySales(filters.getCustomerId(), filters.getSalesType(),
+                filters.getProductIds(), filters.rangeStart(), filters.rangeEnd()));
+    }
+
+    // Order count, units and revenue per day, week or month (bucket) for the same filters
+    // as /metrics; buckets without orders are left out
+    @GetMapping("/metrics/timeseries")
+    public ResponseEntity<?> getSalesTimeSeries(
+            @RequestParam(defaultValue = "day") String bucket,
+            OrderFilterParams filters) {
 
+        TimeBucket timeBucket;
         try {
-            // Get all orders matching the filters (without pagination)
-            Page<Order> orders;
-            if ("single".equals(dateFilterType) && singleDate != null) {
-                orders = orderService.getOrdersByFilters(
-                    customerId, salesType, null, productIds, singleDate, null, null,
-                    Pageable.unpaged());
-            } else if ("range".equals(dateFilterType) && startDate != null &&
-                       endDate != null) {
-                orders = orderService.getOrdersByFilters(
-                    customerId, salesType, null, productIds, null, startDate, endDate,
-                    Pageable.unpaged());
-            } else {
-                orders = orderService.getOrdersByFilters(
-                    customerId, salesType, null, productIds, null, null, null,
-                    Pageable.unpaged());
-            }
+            timeBucket = TimeBucket.valueOf(bucket.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown bucket: " + bucket + " (expected day, week or month)");
+        }
+
+        List<SalesTimeSeriesPointDTO> points = orderService.getSalesTimeSeries(filters.getCustomerId(),
+                filters.getSalesType(), filters.getProductIds(), filters.rangeStart(), filters.rangeEnd(), timeBucket);
+        return ResponseEntity.ok(points);
+    }
 
-            // Build CSV content
-            StringBuilder csvContent = new StringBuilder();
-            // Add CSV header
-            csvContent.append(
-                "Order ID,Customer ID,Product ID,Quantity,Total Cost,Order Method,Sales Date,Sales Type,Shipping Method\n");
-
-            // Add data rows
-            for (Order order : orders.getContent()) {
-                csvContent.append(String.format(
-                    "%d,%d,%d,%d,%.2f,%s,%s,%s,%s\n", order.getId(),
-                    order.getCustomer().getCID(), order.getProduct().getPID(),
-                    order.getQuantity(), order.getTotalCost(),
-                    order.getOrderMethod(), order.getSalesDate(),
-                    order.getSalesType(), order.getShippingMethod()));
+    // Median, p90, p99 and histogram of order value over all orders matching salesType and
+    // productIds, split by groupBy (none, product or salesType). bounds are the histogram's
+    // upper bucket limits.
+    @GetMapping("/metrics/distribution")
+    public ResponseEntity<?> getOrderValueDistribution(
+            @RequestParam(defaultValue = "none") String groupBy,
+            @RequestParam(required = false) String salesType,
+            @RequestParam(required = false) List<Integer> productIds,
+            @RequestParam(required = false) List<Double> bounds) {
+
+        OrderValueGrouping grouping;
+        switch (groupBy.toLowerCase(Locale.ROOT)) {
+            case "none":
+                grouping = OrderValueGrouping.NONE;
+                break;
+            case "product":
+                grouping = OrderValueGrouping.PRODUCT;
+                break;
+            case "salestype":
+                grouping = OrderValueGrouping.SALES_TYPE;
+                break;
+            default:
+                return ResponseEntity.badRequest()
+                        .body("Unknown groupBy: " + groupBy + " (expected none, product or salesType)");
+        }
+
+        List<OrderValueDistributionDTO> distributions =
+                orderValueDistributionService.query(salesType, productIds, grouping, bounds);
+        return ResponseEntity.ok(distributions);
+    }
+
+    // Recomputes the daily rollup from the orders table, for when orders were changed by hand
+    @PostMapping("/metrics/rollup/rebuild")
+    public ResponseEntity<Integer> rebuildDailyRollup() {
+        logger.info("Rebuilding daily sales rollup");
+        int rows = orderService.rebuildDailyRollup();
+        logger.info("Daily sales rollup rebuilt with {} rows", rows);
+        return ResponseEntity.ok(rows);
+    }
+
+    // Streams the CSV as the rows come off the database cursor; the length is not known
+    // up front, so the response is chunked
+    @GetMapping("/export/csv")
+    public ResponseEntity<StreamingResponseBody> exportOrdersToCSV(OrderFilterParams filters) {
+        logger.info("Received CSV export request with filters - {}", filters);
+
+        Integer customerId = filters.getCustomerId();
+        String salesType = filters.getSalesType();
+        Double totalCost = totalCost(filters);
+        List<Integer> productIds = filters.getProductIds();
+        LocalDate exportSingleDate = filters.effectiveSingleDate();
+        LocalDate exportStartDate = filters.effectiveStartDate();
+        LocalDate exportEndDate = filters.effectiveEndDate();
+
+        StreamingResponseBody body = out -> {
+            long start = System.currentTimeMillis();
+            try {
+                long rows = orderExportService.writeOrdersCsv(
+                    customerId, salesType, totalCost, productIds, exportSingleDate,
+                    exportStartDate, exportEndDate, out);
+                logger.info("Exported {} orders to CSV in {} ms", rows,
+                            System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                // The status line has already been sent; the client sees a
+                // truncated download
+                logger.error("Error exporting orders to CSV", e);
+                throw e;
             }
+        };
 
-            // Prepare the response
-            byte[] csvBytes =
-                csvContent.toString().getBytes(StandardCharsets.UTF_8);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("text/csv"));
-            headers.setContentDispositionFormData("attachment",
-                                                  "orders_export.csv");
-            headers.setContentLength(csvBytes.length);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment",
+                                              "orders_export.csv");
 
-            return ResponseEntity.ok().headers(headers).body(csvBytes);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
 
-        } catch (Exception e) {
-            logger.error("Error exporting orders to CSV", e);
-            throw e;
+    // Parsed totalCost filter; an unreadable value is logged and ignored
+    private static Double totalCost(OrderFilterParams filters) {
+        Double totalCost = filters.parseTotalCost();
+        if (totalCost == null && filters.getTotalCost() != null && !filters.getTotalCost().isEmpty()) {
+            logger.warn("Invalid totalCost format: {}", filters.getTotalCost());
         }
+        return totalCost;
     }
 
     // Customer Segmentation Endpoints
@@ -0,0 +1,139 @@
+package com.olivecrm.dto;
+
+import java.util.List;
+
+// Hit/miss counters of the Hibernate second-level and query caches since startup
+public class CacheStatisticsDTO {
+    private boolean statisticsEnabled;
+    private long secondLevelCacheHits;
+    private long secondLevelCacheMisses;
+    private long secondLevelCachePuts;
+    private long queryCacheHits;
+    private long queryCacheMisses;
+    private long queryCachePuts;
+    private List<RegionStatistics> regions;
+
+    public static class RegionStatistics {
+        private String region;
+        private long hits;
+        private long misses;
+        private long puts;
+        // -1 when the cache provider does not report it
+        private long elementsInMemory;
+
+        public RegionStatistics() {
+        }
+
+        public RegionStatistics(String region, long hits, long misses, long puts, long elementsInMemory) {
+            this.region = region;
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+            this.elementsInMemory = elementsInMemory;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public void setRegion(String region) {
+            this.region = region;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public void setHits(long hits) {
+            this.hits = hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public void setMisses(long misses) {
+            this.misses = misses;
+        }
+
+        public long getPuts() {
+            return puts;
+        }
+
+        public void setPuts(long puts) {
+            this.puts = puts;
+        }
+
+        public long getElementsInMemory() {
+            return elementsInMemory;
+        }
+
+        public void setElementsInMemory(long elementsInMemory) {
+            this.elementsInMemory = elementsInMemory;
+        }
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public long getSecondLevelCacheHits() {
+        return secondLevelCacheHits;
+    }
+
+    public void setSecondLevelCacheHits(long secondLevelCacheHits) {
+        this.secondLevelCacheHits = secondLevelCacheHits;
+    }
+
+    public long getSecondLevelCacheMisses() {
+        return secondLevelCacheMisses;
+    }
+
+    public void setSecondLevelCacheMisses(long secondLevelCacheMisses) {
+        this.secondLevelCacheMisses = secondLevelCacheMisses;
+    }
+
+    public long getSecondLevelCachePuts() {
+        return secondLevelCachePuts;
+    }
+
+    public void setSecondLevelCachePuts(long secondLevelCachePuts) {
+        this.secondLevelCachePuts = secondLevelCachePuts;
+    }
+
+    public long getQueryCacheHits() {
+        return queryCacheHits;
+    }
+
+    public void setQueryCacheHits(long queryCacheHits) {
+        this.queryCacheHits = queryCacheHits;
+    }
+
+    public long getQueryCacheMisses() {
+        return queryCacheMisses;
+    }
+
+    public void setQueryCacheMisses(long queryCacheMisses) {
+        this.queryCacheMisses = queryCacheMisses;
+    }
+
+    public long getQueryCachePuts() {
+        return queryCachePuts;
+    }
+
+    public void setQueryCachePuts(long queryCachePuts) {
+        this.queryCachePuts = queryCachePuts;
+    }
+
+    public List<RegionStatistics> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(List<RegionStatistics> regions) {
+        this.regions = regions;
+    }
+}
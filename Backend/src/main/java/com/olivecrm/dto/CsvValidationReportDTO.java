@@ -0,0 +1,194 @@
+package com.olivecrm.dto;
+
+import com.olivecrm.enums.CsvImportLayout;
+
+import java.util.List;
+import java.util.Map;
+
+// Result of a dry run over a CSV upload; nothing is written to the database
+public class CsvValidationReportDTO {
+    private CsvImportLayout layout;
+    private long rowsRead;
+    private long validRows;
+    private long invalidRows;
+    private String dateFormat;
+    private boolean dateFormatAmbiguous;
+    private Map<String, Long> errorsByColumn;
+    private List<RowError> errors;
+    private long distinctCustomers;
+    private long newCustomers;
+    private long existingCustomers;
+    private long distinctProducts;
+    private long newProducts;
+    private long existingProducts;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+
+    public static class RowError {
+        private int rowNumber;
+        private List<String> columns;
+        private String reason;
+
+        public RowError() {
+        }
+
+        public RowError(int rowNumber, List<String> columns, String reason) {
+            this.rowNumber = rowNumber;
+            this.columns = columns;
+            this.reason = reason;
+        }
+
+        public int getRowNumber() {
+            return rowNumber;
+        }
+
+        public void setRowNumber(int rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        public void setColumns(List<String> columns) {
+            this.columns = columns;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+
+    // Getters and Setters
+    public CsvImportLayout getLayout() {
+        return layout;
+    }
+
+    public void setLayout(CsvImportLayout layout) {
+        this.layout = layout;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getValidRows() {
+        return validRows;
+    }
+
+    public void setValidRows(long validRows) {
+        this.validRows = validRows;
+    }
+
+    public long getInvalidRows() {
+        return invalidRows;
+    }
+
+    public void setInvalidRows(long invalidRows) {
+        this.invalidRows = invalidRows;
+    }
+
+    public String getDateFormat() {
+        return dateFormat;
+    }
+
+    public void setDateFormat(String dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    public boolean isDateFormatAmbiguous() {
+        return dateFormatAmbiguous;
+    }
+
+    public void setDateFormatAmbiguous(boolean dateFormatAmbiguous) {
+        this.dateFormatAmbiguous = dateFormatAmbiguous;
+    }
+
+    public Map<String, Long> getErrorsByColumn() {
+        return errorsByColumn;
+    }
+
+    public void setErrorsByColumn(Map<String, Long> errorsByColumn) {
+        this.errorsByColumn = errorsByColumn;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    public long getDistinctCustomers() {
+        return distinctCustomers;
+    }
+
+    public void setDistinctCustomers(long distinctCustomers) {
+        this.distinctCustomers = distinctCustomers;
+    }
+
+    public long getNewCustomers() {
+        return newCustomers;
+    }
+
+    public void setNewCustomers(long newCustomers) {
+        this.newCustomers = newCustomers;
+    }
+
+    public long getExistingCustomers() {
+        return existingCustomers;
+    }
+
+    public void setExistingCustomers(long existingCustomers) {
+        this.existingCustomers = existingCustomers;
+    }
+
+    public long getDistinctProducts() {
+        return distinctProducts;
+    }
+
+    public void setDistinctProducts(long distinctProducts) {
+        this.distinctProducts = distinctProducts;
+    }
+
+    public long getNewProducts() {
+        return newProducts;
+    }
+
+    public void setNewProducts(long newProducts) {
+        this.newProducts = newProducts;
+    }
+
+    public long getExistingProducts() {
+        return existingProducts;
+    }
+
+    public void setExistingProducts(long existingProducts) {
+        this.existingProducts = existingProducts;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+}
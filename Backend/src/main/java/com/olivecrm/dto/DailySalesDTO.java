@@ -0,0 +1,55 @@
+package com.olivecrm.dto;
+
+import java.time.LocalDate;
+
+// Sales totals of one day
+public class DailySalesDTO {
+    private LocalDate salesDate;
+    private long orderCount;
+    private long units;
+    private double revenue;
+
+    // Constructors
+    public DailySalesDTO() {
+    }
+
+    public DailySalesDTO(LocalDate salesDate, long orderCount, long units, double revenue) {
+        this.salesDate = salesDate;
+        this.orderCount = orderCount;
+        this.units = units;
+        this.revenue = revenue;
+    }
+
+    // Getters and Setters
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,107 @@
+package com.olivecrm.dto;
+
+import java.util.Map;
+
+public class IngestMetricsDTO {
+    private String importName;
+    private boolean running;
+    private String dateFormat;
+    private long elapsedMillis;
+    private long rowsRead;
+    private long rowsWritten;
+    private long rowsSkipped;
+    private long rowsRejected;
+    private long rowsPerSecond;
+    // Summed over all threads, so PARSE can exceed the elapsed time when parsing in parallel
+    private Map<String, Long> stageMillis;
+    private Map<String, Long> errorsByCause;
+
+    // Getters and Setters
+    public String getImportName() {
+        return importName;
+    }
+
+    public void setImportName(String importName) {
+        this.importName = importName;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    public String getDateFormat() {
+        return dateFormat;
+    }
+
+    public void setDateFormat(String dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    public void setRowsSkipped(long rowsSkipped) {
+        this.rowsSkipped = rowsSkipped;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public Map<String, Long> getStageMillis() {
+        return stageMillis;
+    }
+
+    public void setStageMillis(Map<String, Long> stageMillis) {
+        this.stageMillis = stageMillis;
+    }
+
+    public Map<String, Long> getErrorsByCause() {
+        return errorsByCause;
+    }
+
+    public void setErrorsByCause(Map<String, Long> errorsByCause) {
+        this.errorsByCause = errorsByCause;
+    }
+}
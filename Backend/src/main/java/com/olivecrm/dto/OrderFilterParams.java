@@ -0,0 +1,140 @@
+package com.olivecrm.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Order filter query parameters, bound once for every /api/orders endpoint that filters.
+// The dates only apply as dateFilterType says: singleDate for "single", startDate and
+// endDate (both required) for "range", none otherwise.
+public class OrderFilterParams {
+    private Integer customerId;
+    private String salesType;
+    private String totalCost;
+    private List<Integer> productIds;
+    private String dateFilterType;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private LocalDate singleDate;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private LocalDate startDate;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private LocalDate endDate;
+
+    // Total cost as the UI sends it ("$12.50"); null when missing or not a number
+    public Double parseTotalCost() {
+        if (totalCost == null || totalCost.isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(totalCost.replace("$", "").trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public LocalDate effectiveSingleDate() {
+        return isSingleDate() ? singleDate : null;
+    }
+
+    public LocalDate effectiveStartDate() {
+        return isDateRange() ? startDate : null;
+    }
+
+    public LocalDate effectiveEndDate() {
+        return isDateRange() ? endDate : null;
+    }
+
+    // Inclusive bounds of the date filter for the metrics, which take a single date as a
+    // one-day range
+    public LocalDate rangeStart() {
+        return isSingleDate() ? singleDate : effectiveStartDate();
+    }
+
+    public LocalDate rangeEnd() {
+        return isSingleDate() ? singleDate : effectiveEndDate();
+    }
+
+    private boolean isSingleDate() {
+        return "single".equals(dateFilterType) && singleDate != null;
+    }
+
+    private boolean isDateRange() {
+        return !isSingleDate() && "range".equals(dateFilterType) && startDate != null && endDate != null;
+    }
+
+    // Getters and Setters
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Integer customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getSalesType() {
+        return salesType;
+    }
+
+    public void setSalesType(String salesType) {
+        this.salesType = salesType;
+    }
+
+    public String getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(String totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    public List<Integer> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<Integer> productIds) {
+        this.productIds = productIds;
+    }
+
+    public String getDateFilterType() {
+        return dateFilterType;
+    }
+
+    public void setDateFilterType(String dateFilterType) {
+        this.dateFilterType = dateFilterType;
+    }
+
+    public LocalDate getSingleDate() {
+        return singleDate;
+    }
+
+    public void setSingleDate(LocalDate singleDate) {
+        this.singleDate = singleDate;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    @Override
+    public String toString() {
+        return "customerId=" + customerId + ", salesType=" + salesType + ", totalCost=" + totalCost +
+                ", productIds=" + productIds + ", dateFilterType=" + dateFilterType + ", singleDate=" + singleDate +
+                ", startDate=" + startDate + ", endDate=" + endDate;
+    }
+}
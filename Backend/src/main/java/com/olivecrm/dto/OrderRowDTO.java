@@ -0,0 +1,149 @@
+package com.olivecrm.dto;
+
+import java.time.LocalDate;
+
+// Flat, read-only view of an order with the customer and product columns it is listed
+// with. Filled straight from one joined query, so no Customer or Product entity is loaded.
+public class OrderRowDTO {
+    private int id;
+    private Integer customerId;
+    private String customerFirstName;
+    private String customerLastName;
+    private Integer productId;
+    private String productName;
+    private String productVariant;
+    private int quantity;
+    private double totalCost;
+    private String orderMethod;
+    private LocalDate salesDate;
+    private String salesType;
+    private String shippingMethod;
+
+    // Constructors
+    public OrderRowDTO() {
+    }
+
+    public OrderRowDTO(int id, Integer customerId, String customerFirstName, String customerLastName,
+                       Integer productId, String productName, String productVariant, int quantity,
+                       double totalCost, String orderMethod, LocalDate salesDate, String salesType,
+                       String shippingMethod) {
+        this.id = id;
+        this.customerId = customerId;
+        this.customerFirstName = customerFirstName;
+        this.customerLastName = customerLastName;
+        this.productId = productId;
+        this.productName = productName;
+        this.productVariant = productVariant;
+        this.quantity = quantity;
+        this.totalCost = totalCost;
+        this.orderMethod = orderMethod;
+        this.salesDate = salesDate;
+        this.salesType = salesType;
+        this.shippingMethod = shippingMethod;
+    }
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Integer customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getCustomerFirstName() {
+        return customerFirstName;
+    }
+
+    public void setCustomerFirstName(String customerFirstName) {
+        this.customerFirstName = customerFirstName;
+    }
+
+    public String getCustomerLastName() {
+        return customerLastName;
+    }
+
+    public void setCustomerLastName(String customerLastName) {
+        this.customerLastName = customerLastName;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public String getProductVariant() {
+        return productVariant;
+    }
+
+    public void setProductVariant(String productVariant) {
+        this.productVariant = productVariant;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(double totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    public String getOrderMethod() {
+        return orderMethod;
+    }
+
+    public void setOrderMethod(String orderMethod) {
+        this.orderMethod = orderMethod;
+    }
+
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public String getSalesType() {
+        return salesType;
+    }
+
+    public void setSalesType(String salesType) {
+        this.salesType = salesType;
+    }
+
+    public String getShippingMethod() {
+        return shippingMethod;
+    }
+
+    public void setShippingMethod(String shippingMethod) {
+        this.shippingMethod = shippingMethod;
+    }
+}
@@ -0,0 +1,128 @@
+package com.olivecrm.dto;
+
+import java.util.List;
+
+// Distribution of order value (total cost) over a group of orders. productId (0 for orders
+// without a product) and salesType name the group when the distribution is split by them;
+// the quantiles are null for an empty group.
+public class OrderValueDistributionDTO {
+    private Integer productId;
+    private String salesType;
+    private long orderCount;
+    private Double median;
+    private Double p90;
+    private Double p99;
+    private List<HistogramBucket> histogram;
+
+    // Orders with lowerBound < total cost <= upperBound; a null bound is open
+    public static class HistogramBucket {
+        private Double lowerBound;
+        private Double upperBound;
+        private long orderCount;
+
+        public HistogramBucket() {
+        }
+
+        public HistogramBucket(Double lowerBound, Double upperBound, long orderCount) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.orderCount = orderCount;
+        }
+
+        public Double getLowerBound() {
+            return lowerBound;
+        }
+
+        public void setLowerBound(Double lowerBound) {
+            this.lowerBound = lowerBound;
+        }
+
+        public Double getUpperBound() {
+            return upperBound;
+        }
+
+        public void setUpperBound(Double upperBound) {
+            this.upperBound = upperBound;
+        }
+
+        public long getOrderCount() {
+            return orderCount;
+        }
+
+        public void setOrderCount(long orderCount) {
+            this.orderCount = orderCount;
+        }
+    }
+
+    // Constructors
+    public OrderValueDistributionDTO() {
+    }
+
+    public OrderValueDistributionDTO(Integer productId, String salesType, long orderCount, Double median, Double p90,
+                                     Double p99, List<HistogramBucket> histogram) {
+        this.productId = productId;
+        this.salesType = salesType;
+        this.orderCount = orderCount;
+        this.median = median;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.histogram = histogram;
+    }
+
+    // Getters and Setters
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public String getSalesType() {
+        return salesType;
+    }
+
+    public void setSalesType(String salesType) {
+        this.salesType = salesType;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public Double getMedian() {
+        return median;
+    }
+
+    public void setMedian(Double median) {
+        this.median = median;
+    }
+
+    public Double getP90() {
+        return p90;
+    }
+
+    public void setP90(Double p90) {
+        this.p90 = p90;
+    }
+
+    public Double getP99() {
+        return p99;
+    }
+
+    public void setP99(Double p99) {
+        this.p99 = p99;
+    }
+
+    public List<HistogramBucket> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(List<HistogramBucket> histogram) {
+        this.histogram = histogram;
+    }
+}
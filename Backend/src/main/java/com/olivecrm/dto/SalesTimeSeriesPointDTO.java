@@ -0,0 +1,55 @@
+package com.olivecrm.dto;
+
+import java.time.LocalDate;
+
+// Sales totals of one day, week or month, labelled with the bucket's first day
+public class SalesTimeSeriesPointDTO {
+    private LocalDate bucketStart;
+    private long orderCount;
+    private long units;
+    private double revenue;
+
+    // Constructors
+    public SalesTimeSeriesPointDTO() {
+    }
+
+    public SalesTimeSeriesPointDTO(LocalDate bucketStart, long orderCount, long units, double revenue) {
+        this.bucketStart = bucketStart;
+        this.orderCount = orderCount;
+        this.units = units;
+        this.revenue = revenue;
+    }
+
+    // Getters and Setters
+    public LocalDate getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDate bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,154 @@
+package com.olivecrm.entity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.olivecrm.enums.CsvImportLayout;
+
+@Entity
+@Table(name = "IMPORT_JOB")
+public class ImportJob {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private long id;
+
+    @Column(name = "file_name") private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "layout", nullable = false)
+    private CsvImportLayout layout;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    // Spooled copy of the upload, kept until the job completes so it can be resumed
+    @JsonIgnore
+    @Column(name = "stored_file")
+    private String storedFile;
+
+    @Column(name = "rows_read") private long rowsRead;
+
+    @Column(name = "rows_committed") private long rowsCommitted;
+
+    @Column(name = "rows_failed") private long rowsFailed;
+
+    // Rows skipped in idempotent mode because the same sale was already ingested
+    @Column(name = "rows_skipped") private long rowsSkipped;
+
+    @Column(name = "idempotent") private boolean idempotent;
+
+    // Load through a staging table and set-based merge instead of chunk by chunk
+    @Column(name = "bulk") private boolean bulk;
+
+    // Commit valid rows and quarantine rejected ones instead of failing at the first bad row
+    @Column(name = "quarantine") private boolean quarantine;
+
+    // Last CSV row number whose chunk has been committed; a resumed job starts after it
+    @Column(name = "checkpoint_row") private int checkpointRow;
+
+    @Column(name = "error_message", length = 2000) private String errorMessage;
+
+    // Final ingest summary of the last run: throughput, stage timings and errors by cause
+    @Column(name = "metrics_summary", length = 2000) private String metricsSummary;
+
+    @Column(name = "created_at") private LocalDateTime createdAt;
+
+    @Column(name = "started_at") private LocalDateTime startedAt;
+
+    @Column(name = "finished_at") private LocalDateTime finishedAt;
+
+    // Enum for Status
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    // Committed rows per second since the job started
+    public long getThroughput() {
+        if (startedAt == null) {
+            return 0;
+        }
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return rowsCommitted * 1000 / millis;
+    }
+
+    // Getters and Setters
+    public long getId() { return id; }
+
+    public void setId(long id) { this.id = id; }
+
+    public String getFileName() { return fileName; }
+
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public CsvImportLayout getLayout() { return layout; }
+
+    public void setLayout(CsvImportLayout layout) { this.layout = layout; }
+
+    public Status getStatus() { return status; }
+
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getStoredFile() { return storedFile; }
+
+    public void setStoredFile(String storedFile) { this.storedFile = storedFile; }
+
+    public long getRowsRead() { return rowsRead; }
+
+    public void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+
+    public long getRowsCommitted() { return rowsCommitted; }
+
+    public void setRowsCommitted(long rowsCommitted) { this.rowsCommitted = rowsCommitted; }
+
+    public long getRowsFailed() { return rowsFailed; }
+
+    public void setRowsFailed(long rowsFailed) { this.rowsFailed = rowsFailed; }
+
+    public long getRowsSkipped() { return rowsSkipped; }
+
+    public void setRowsSkipped(long rowsSkipped) { this.rowsSkipped = rowsSkipped; }
+
+    public boolean isIdempotent() { return idempotent; }
+
+    public void setIdempotent(boolean idempotent) { this.idempotent = idempotent; }
+
+    public boolean isBulk() { return bulk; }
+
+    public void setBulk(boolean bulk) { this.bulk = bulk; }
+
+    public boolean isQuarantine() { return quarantine; }
+
+    public void setQuarantine(boolean quarantine) { this.quarantine = quarantine; }
+
+    public int getCheckpointRow() { return checkpointRow; }
+
+    public void setCheckpointRow(int checkpointRow) { this.checkpointRow = checkpointRow; }
+
+    public String getErrorMessage() { return errorMessage; }
+
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public String getMetricsSummary() { return metricsSummary; }
+
+    public void setMetricsSummary(String metricsSummary) { this.metricsSummary = metricsSummary; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
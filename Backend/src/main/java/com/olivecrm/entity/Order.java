@@ -1,11 +1,20 @@
 package com.olivecrm.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import javax.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "ORDERS")
+// Indexes are created by the Flyway migrations in db/migration and mirrored here
+@Table(name = "ORDERS", indexes = {
+    @Index(name = "idx_orders_row_fingerprint", columnList = "row_fingerprint"),
+    @Index(name = "idx_orders_customer_date", columnList = "customer_id, sales_date, total_cost"),
+    @Index(name = "idx_orders_date_customer", columnList = "sales_date, customer_id"),
+    @Index(name = "idx_orders_product_date", columnList = "product_id, sales_date"),
+    @Index(name = "idx_orders_type_date", columnList = "sales_type, sales_date"),
+    @Index(name = "idx_orders_date_id", columnList = "sales_date, id")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,12 +31,22 @@ public class Order {
     private Product product;
 
     private int quantity;
+    // Named explicitly because the indexes above refer to these columns, and Hibernate
+    // matches index columns against explicit names rather than derived ones
+    @Column(name = "total_cost")
     private double totalCost;
     private String orderMethod;
+    @Column(name = "sales_date")
     private LocalDate salesDate;
+    @Column(name = "sales_type")
     private String salesType;
     private String shippingMethod;
 
+    // Content hash of the sale, see RowFingerprint; used to skip re-uploaded CSV rows
+    @JsonIgnore
+    @Column(name = "row_fingerprint")
+    private Long rowFingerprint;
+
     // Getters and setters
     public int getId() {
         return id;
@@ -100,4 +119,12 @@ public class Order {
     public void setShippingMethod(String shippingMethod) {
         this.shippingMethod = shippingMethod;
     }
+
+    public Long getRowFingerprint() {
+        return rowFingerprint;
+    }
+
+    public void setRowFingerprint(Long rowFingerprint) {
+        this.rowFingerprint = rowFingerprint;
+    }
 }
@@ -1,18 +1,31 @@
 package com.olivecrm.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "PRODUCT")
+// Held in the second-level cache, see ehcache.xml
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "PRODUCT", uniqueConstraints = @UniqueConstraint(name = "uk_product_name_variant",
+        columnNames = { "product_name", "product_variant" }))
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int pID;
+    // Named explicitly for the unique constraint above
+    @Column(name = "product_name")
     private String productName;
+    @Column(name = "product_variant")
     private String productVariant;
     private double individualPrice;
 
@@ -0,0 +1,59 @@
+package com.olivecrm.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+// A CSV row rejected by an import job running in quarantine mode
+@Entity
+@Table(name = "QUARANTINED_ROW", indexes = @Index(name = "idx_quarantined_row_job", columnList = "import_job_id, source_row"))
+public class QuarantinedRow {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private long id;
+
+    @Column(name = "import_job_id", nullable = false) private long importJobId;
+
+    // Record number in the uploaded file, the header being row 0. Not named row_number,
+    // which is reserved in MySQL 8
+    @Column(name = "source_row") private int rowNumber;
+
+    @Column(name = "reason", length = 1000) private String reason;
+
+    // The row as it appeared in the file, re-encoded as one CSV line
+    @Lob
+    @Column(name = "raw_row")
+    private String rawRow;
+
+    @Column(name = "created_at") private LocalDateTime createdAt;
+
+    // Getters and Setters
+    public long getId() { return id; }
+
+    public void setId(long id) { this.id = id; }
+
+    public long getImportJobId() { return importJobId; }
+
+    public void setImportJobId(long importJobId) { this.importJobId = importJobId; }
+
+    public int getRowNumber() { return rowNumber; }
+
+    public void setRowNumber(int rowNumber) { this.rowNumber = rowNumber; }
+
+    public String getReason() { return reason; }
+
+    public void setReason(String reason) { this.reason = reason; }
+
+    public String getRawRow() { return rawRow; }
+
+    public void setRawRow(String rawRow) { this.rawRow = rawRow; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
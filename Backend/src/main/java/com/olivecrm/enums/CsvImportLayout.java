@@ -0,0 +1,18 @@
+package com.olivecrm.enums;
+
+public enum CsvImportLayout {
+    SALES("Row No.", "Sale Date", "Sale Type", "Digital", "Customer ID", "ZipCode", "Shipping Method",
+            "Product", "Variant", "Quantity", "Price", "Product Price"),
+    CUSTOMER_NAMES("Row No.", "Sale Date", "Sale Type", "Digital", "Customer ID", "First Name", "Last Name", "ZipCode",
+            "Shipping Method", "Product", "Variant", "Quantity", "Price", "Product Price");
+
+    private final String[] header;
+
+    CsvImportLayout(String... header) {
+        this.header = header;
+    }
+
+    public String[] getHeader() {
+        return header.clone();
+    }
+}
@@ -0,0 +1,9 @@
+package com.olivecrm.enums;
+
+// How an order value distribution is split: one for all matching orders, or one per
+// product or per sales type
+public enum OrderValueGrouping {
+    NONE,
+    PRODUCT,
+    SALES_TYPE
+}
@@ -0,0 +1,35 @@
+package com.olivecrm.enums;
+
+import java.time.LocalDate;
+
+// Bucket width of a sales time series. Days are epoch days; weeks start on Monday.
+public enum TimeBucket {
+    DAY,
+    WEEK,
+    MONTH;
+
+    // First epoch day of the bucket holding epochDay
+    public int start(int epochDay) {
+        switch (this) {
+            case WEEK:
+                // Epoch day 0 was a Thursday
+                return epochDay - Math.floorMod(epochDay + 3, 7);
+            case MONTH:
+                return (int) LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+            default:
+                return epochDay;
+        }
+    }
+
+    // First epoch day of the bucket following the one starting at bucketStart
+    public int next(int bucketStart) {
+        switch (this) {
+            case WEEK:
+                return bucketStart + 7;
+            case MONTH:
+                return (int) LocalDate.ofEpochDay(bucketStart).plusMonths(1).toEpochDay();
+            default:
+                return bucketStart + 1;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.service.CsvOrderRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Batched form of CustomerRepository.updateCustomerName for the names-only enrichment
+// upload. Like it, only existing customers are updated.
+@Repository
+public class CustomerNameBatchRepository {
+
+    private static final String UPDATE_NAMES_SQL =
+            "UPDATE customer SET first_name = ?, last_name = ?, zipcode = COALESCE(?, zipcode) WHERE c_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${csv.import.jdbc-batch-size:100}")
+    private int jdbcBatchSize;
+
+    // A null zipcode leaves the stored one unchanged
+    public void updateNames(List<CsvOrderRow> customers) {
+        if (customers.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_NAMES_SQL, customers, jdbcBatchSize, (ps, customer) -> {
+            ps.setString(1, customer.getFirstName());
+            ps.setString(2, customer.getLastName());
+            ps.setString(3, customer.getZipCode());
+            ps.setInt(4, customer.getCustomerId());
+        });
+    }
+}
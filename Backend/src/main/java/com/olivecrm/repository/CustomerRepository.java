@@ -2,11 +2,13 @@ package com.olivecrm.repository;
 
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.olivecrm.entity.Customer;
@@ -17,6 +19,7 @@ public interface CustomerRepository extends JpaRepository<Customer, Integer> {
     Optional<Integer> findMaxCustomerId();
 
     @Query("SELECT c FROM Customer c WHERE c.cID = ?1")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Customer> findCustomerById(Integer cID);
 
     @Modifying
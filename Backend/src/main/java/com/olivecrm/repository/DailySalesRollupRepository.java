@@ -0,0 +1,161 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.dto.DailySalesDTO;
+import com.olivecrm.entity.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// JDBC access to DAILY_SALES_ROLLUP: order count, units and revenue per (sales_date,
+// product_id, sales_type). Every order write adjusts its row in the writer's transaction,
+// so the totals always match ORDERS and metrics read a few rows per day instead of every order.
+@Repository
+public class DailySalesRollupRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO daily_sales_rollup (sales_date, product_id, sales_type, order_count, units, revenue) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "units = units + VALUES(units), revenue = revenue + VALUES(revenue)";
+
+    // Same grouping as the V5 migration; NULL keys are stored as 0 and ''
+    private static final String ROLLUP_SELECT =
+            "SELECT sales_date, COALESCE(product_id, 0), COALESCE(sales_type, ''), COUNT(*), SUM(quantity), SUM(total_cost) " +
+            "FROM orders WHERE sales_date IS NOT NULL " +
+            "GROUP BY sales_date, COALESCE(product_id, 0), COALESCE(sales_type, '')";
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing((Key key) -> key.salesDate)
+            .thenComparingInt(key -> key.productId)
+            .thenComparing(key -> key.salesType);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Adds newly written orders. They are summed per key first, so a CSV chunk costs one
+    // upsert per day, product and sales type rather than one per order; keys are written in
+    // primary key order so concurrent imports lock rows in the same order.
+    public void add(Collection<Order> orders) {
+        Map<Key, Totals> totals = new TreeMap<>(KEY_ORDER);
+        for (Order order : orders) {
+            if (order.getSalesDate() == null) {
+                continue;
+            }
+            totals.computeIfAbsent(Key.of(order), key -> new Totals()).add(order);
+        }
+        if (totals.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(totals.size());
+        totals.forEach((key, sum) -> batch.add(new Object[] {
+                Date.valueOf(key.salesDate), key.productId, key.salesType, sum.orderCount, sum.units, sum.revenue}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+
+    // Takes a deleted order back out, dropping its row once no order is left in it
+    public void remove(Order order) {
+        if (order.getSalesDate() == null) {
+            return;
+        }
+        Key key = Key.of(order);
+        Date salesDate = Date.valueOf(key.salesDate);
+        jdbcTemplate.update(UPSERT_SQL, salesDate, key.productId, key.salesType,
+                -1, -order.getQuantity(), -order.getTotalCost());
+        jdbcTemplate.update("DELETE FROM daily_sales_rollup " +
+                "WHERE sales_date = ? AND product_id = ? AND sales_type = ? AND order_count <= 0",
+                salesDate, key.productId, key.salesType);
+    }
+
+    // Recomputes the whole table from ORDERS, e.g. after orders were changed by hand.
+    // Call within a transaction so readers never see it empty. Returns the number of rows.
+    public int rebuild() {
+        jdbcTemplate.update("DELETE FROM daily_sales_rollup");
+        return jdbcTemplate.update("INSERT INTO daily_sales_rollup " +
+                "(sales_date, product_id, sales_type, order_count, units, revenue) " + ROLLUP_SELECT);
+    }
+
+    // { order count, revenue } of the dated orders matching the filters; null filters are not applied
+    public Object[] sumTotals(String salesType, List<Integer> productIds, LocalDate startDate, LocalDate endDate) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT COALESCE(SUM(order_count), 0), COALESCE(SUM(revenue), 0) FROM daily_sales_rollup" +
+                where(salesType, productIds, startDate, endDate, params);
+        return namedParameterJdbcTemplate.queryForObject(sql, params,
+                (resultSet, rowNum) -> new Object[] {resultSet.getLong(1), resultSet.getDouble(2)});
+    }
+
+    // Totals per day of the orders matching the filters, oldest day first
+    public List<DailySalesDTO> sumByDay(String salesType, List<Integer> productIds, LocalDate startDate,
+                                        LocalDate endDate) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT sales_date, SUM(order_count), SUM(units), SUM(revenue) FROM daily_sales_rollup" +
+                where(salesType, productIds, startDate, endDate, params) +
+                " GROUP BY sales_date ORDER BY sales_date";
+        return namedParameterJdbcTemplate.query(sql, params, (resultSet, rowNum) -> new DailySalesDTO(
+                resultSet.getDate(1).toLocalDate(), resultSet.getLong(2), resultSet.getLong(3), resultSet.getDouble(4)));
+    }
+
+    private static String where(String salesType, List<Integer> productIds, LocalDate startDate, LocalDate endDate,
+                                MapSqlParameterSource params) {
+        List<String> conditions = new ArrayList<>();
+        if (salesType != null) {
+            conditions.add("sales_type = :salesType");
+            params.addValue("salesType", salesType);
+        }
+        if (productIds != null && !productIds.isEmpty()) {
+            conditions.add("product_id IN (:productIds)");
+            params.addValue("productIds", productIds);
+        }
+        if (startDate != null) {
+            conditions.add("sales_date >= :startDate");
+            params.addValue("startDate", Date.valueOf(startDate));
+        }
+        if (endDate != null) {
+            conditions.add("sales_date <= :endDate");
+            params.addValue("endDate", Date.valueOf(endDate));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static final class Key {
+        private final LocalDate salesDate;
+        private final int productId;
+        private final String salesType;
+
+        private Key(LocalDate salesDate, int productId, String salesType) {
+            this.salesDate = salesDate;
+            this.productId = productId;
+            this.salesType = salesType;
+        }
+
+        static Key of(Order order) {
+            return new Key(order.getSalesDate(),
+                    order.getProduct() != null ? order.getProduct().getPID() : 0,
+                    order.getSalesType() != null ? order.getSalesType() : "");
+        }
+    }
+
+    private static final class Totals {
+        private long orderCount;
+        private long units;
+        private double revenue;
+
+        void add(Order order) {
+            orderCount++;
+            units += order.getQuantity();
+            revenue += order.getTotalCost();
+        }
+    }
+}
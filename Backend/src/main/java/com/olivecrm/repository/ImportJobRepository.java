@@ -0,0 +1,33 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.entity.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    List<ImportJob> findByStatusIn(Collection<ImportJob.Status> statuses);
+
+    List<ImportJob> findTop20ByOrderByIdDesc();
+
+    // Runs inside the chunk transaction so the checkpoint commits atomically with the rows
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.checkpointRow = :checkpointRow, " +
+           "j.rowsCommitted = j.rowsCommitted + :committed, j.rowsSkipped = j.rowsSkipped + :skipped, " +
+           "j.rowsFailed = j.rowsFailed + :failed, j.rowsRead = :rowsRead WHERE j.id = :id")
+    int recordCheckpoint(@Param("id") long id,
+                         @Param("checkpointRow") int checkpointRow,
+                         @Param("committed") long committed,
+                         @Param("skipped") long skipped,
+                         @Param("failed") long failed,
+                         @Param("rowsRead") long rowsRead);
+}
@@ -0,0 +1,46 @@
+package com.olivecrm.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+// Read-only lookups of the keys an import matches rows against
+@Repository
+public class ImportLookupRepository {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Counts how many of the given customer ids exist, one primary key IN query per
+    // chunk, so the cost follows the file rather than the customer table
+    public long countExistingCustomers(Collection<Integer> customerIds) {
+        List<Integer> ids = new ArrayList<>(customerIds);
+        long existing = 0;
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            Long count = namedParameterJdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM customer WHERE c_id IN (:ids)",
+                    new MapSqlParameterSource("ids", ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()))),
+                    Long.class);
+            existing += count != null ? count : 0;
+        }
+        return existing;
+    }
+
+    public void forEachProductKey(BiConsumer<String, String> consumer) {
+        jdbcTemplate.query("SELECT product_name, product_variant FROM product", resultSet -> {
+            consumer.accept(resultSet.getString(1), resultSet.getString(2));
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.entity.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+// Order ids are IDENTITY generated, which stops Hibernate from batching
+// inserts, so bulk writes go straight through JDBC and let MySQL assign ids
+@Repository
+public class OrderBatchRepository {
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (customer_id, product_id, quantity, total_cost, order_method, sales_date, sales_type, shipping_method, row_fingerprint) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${csv.import.jdbc-batch-size:100}")
+    private int jdbcBatchSize;
+
+    // Sets the ids MySQL assigned on the orders, for OrderSalesChangedEvent
+    public void insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ORDER_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < orders.size(); from += jdbcBatchSize) {
+                    List<Order> batch = orders.subList(from, Math.min(from + jdbcBatchSize, orders.size()));
+                    for (Order order : batch) {
+                        setValues(ps, order);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        for (Order order : batch) {
+                            if (!keys.next()) {
+                                throw new SQLException("Fewer generated order ids than orders inserted");
+                            }
+                            order.setId(keys.getInt(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void setValues(PreparedStatement ps, Order order) throws SQLException {
+        ps.setInt(1, order.getCustomer().getCID());
+        ps.setInt(2, order.getProduct().getPID());
+        ps.setInt(3, order.getQuantity());
+        ps.setDouble(4, order.getTotalCost());
+        ps.setString(5, order.getOrderMethod());
+        if (order.getSalesDate() != null) {
+            ps.setDate(6, Date.valueOf(order.getSalesDate()));
+        } else {
+            ps.setNull(6, Types.DATE);
+        }
+        ps.setString(7, order.getSalesType());
+        ps.setString(8, order.getShippingMethod());
+        if (order.getRowFingerprint() != null) {
+            ps.setLong(9, order.getRowFingerprint());
+        } else {
+            ps.setNull(9, Types.BIGINT);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.entity.Order;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// One condition of the order filter on a bare ORDERS column. OrderSpecifications.conditions
+// defines the filter once as a list of these; it is rendered as a Criteria predicate for
+// the JPA queries and as SQL for the JDBC ones, so both always select the same orders.
+public final class OrderCondition {
+
+    public enum Column {
+        // Foreign keys are compared directly; Hibernate does not join CUSTOMER or PRODUCT for the id
+        CUSTOMER("customer_id", "customer", "cID"),
+        SALES_TYPE("sales_type", "salesType"),
+        TOTAL_COST("total_cost", "totalCost"),
+        PRODUCT("product_id", "product", "pID"),
+        SALES_DATE("sales_date", "salesDate");
+
+        private final String sqlName;
+        private final String[] attributePath;
+
+        Column(String sqlName, String... attributePath) {
+            this.sqlName = sqlName;
+            this.attributePath = attributePath;
+        }
+
+        private <T> Path<T> path(Root<Order> root) {
+            Path<?> path = root;
+            for (String attribute : attributePath) {
+                path = path.get(attribute);
+            }
+            @SuppressWarnings("unchecked")
+            Path<T> typed = (Path<T>) path;
+            return typed;
+        }
+    }
+
+    public enum Operator {
+        EQUAL, AT_LEAST, LESS_THAN, AT_MOST, IN, IS_NULL
+    }
+
+    private final Column column;
+    private final Operator operator;
+    private final Object value;
+
+    private OrderCondition(Column column, Operator operator, Object value) {
+        this.column = column;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    public static OrderCondition equal(Column column, Object value) {
+        return new OrderCondition(column, Operator.EQUAL, value);
+    }
+
+    public static OrderCondition atLeast(Column column, Comparable<?> value) {
+        return new OrderCondition(column, Operator.AT_LEAST, value);
+    }
+
+    public static OrderCondition lessThan(Column column, Comparable<?> value) {
+        return new OrderCondition(column, Operator.LESS_THAN, value);
+    }
+
+    public static OrderCondition atMost(Column column, Comparable<?> value) {
+        return new OrderCondition(column, Operator.AT_MOST, value);
+    }
+
+    public static OrderCondition in(Column column, Collection<?> values) {
+        return new OrderCondition(column, Operator.IN, values);
+    }
+
+    public static OrderCondition isNull(Column column) {
+        return new OrderCondition(column, Operator.IS_NULL, null);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Predicate toPredicate(Root<Order> root, CriteriaBuilder cb) {
+        switch (operator) {
+            case EQUAL:
+                return cb.equal(column.path(root), value);
+            case AT_LEAST:
+                return cb.greaterThanOrEqualTo(column.<Comparable>path(root), (Comparable) value);
+            case LESS_THAN:
+                return cb.lessThan(column.<Comparable>path(root), (Comparable) value);
+            case AT_MOST:
+                return cb.lessThanOrEqualTo(column.<Comparable>path(root), (Comparable) value);
+            case IN:
+                return column.path(root).in((Collection<?>) value);
+            default:
+                return cb.isNull(column.path(root));
+        }
+    }
+
+    // SQL with ? placeholders for the values, which sqlArgs returns in the same order
+    public String toSql() {
+        switch (operator) {
+            case EQUAL:
+                return column.sqlName + " = ?";
+            case AT_LEAST:
+                return column.sqlName + " >= ?";
+            case LESS_THAN:
+                return column.sqlName + " < ?";
+            case AT_MOST:
+                return column.sqlName + " <= ?";
+            case IN:
+                int size = ((Collection<?>) value).size();
+                return column.sqlName + " IN (" + String.join(",", Collections.nCopies(size, "?")) + ")";
+            default:
+                return column.sqlName + " IS NULL";
+        }
+    }
+
+    public void addSqlArgs(List<Object> args) {
+        if (operator == Operator.IN) {
+            for (Object element : (Collection<?>) value) {
+                args.add(sqlValue(element));
+            }
+        } else if (operator != Operator.IS_NULL) {
+            args.add(sqlValue(value));
+        }
+    }
+
+    private static Object sqlValue(Object value) {
+        return value instanceof LocalDate ? Date.valueOf((LocalDate) value) : value;
+    }
+}
@@ -0,0 +1,63 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.dto.OrderRowDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Streams the order rows of a CSV export straight from ORDERS through a forward-only cursor
+@Repository
+public class OrderExportRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows one at a time; a positive size
+    // reads in chunks of that many rows when the connection sets useCursorFetch=true
+    @Value("${orders.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    // Orders matching conditions (see OrderSpecifications.conditions), in table order.
+    // Customer and product ids come from the foreign keys, so nothing is joined; the names
+    // are left null.
+    public void forEachRow(List<OrderCondition> conditions, Consumer<OrderRowDTO> handler) {
+        List<String> where = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        for (OrderCondition condition : conditions) {
+            where.add(condition.toSql());
+            condition.addSqlArgs(args);
+        }
+        String sql = "SELECT id, customer_id, product_id, quantity, total_cost, order_method, sales_date, " +
+                "sales_type, shipping_method FROM orders" +
+                (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where));
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            new ArgumentPreparedStatementSetter(args.toArray()).setValues(statement);
+            return statement;
+        }, resultSet -> {
+            Date salesDate = resultSet.getDate(7);
+            handler.accept(new OrderRowDTO(
+                    resultSet.getInt(1),
+                    resultSet.getObject(2, Integer.class), null, null,
+                    resultSet.getObject(3, Integer.class), null, null,
+                    resultSet.getInt(4),
+                    resultSet.getDouble(5),
+                    resultSet.getString(6),
+                    salesDate != null ? salesDate.toLocalDate() : null,
+                    resultSet.getString(8),
+                    resultSet.getString(9)));
+        });
+    }
+}
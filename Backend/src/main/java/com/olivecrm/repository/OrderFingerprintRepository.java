@@ -0,0 +1,69 @@
+package com.olivecrm.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+// JDBC access to ORDERS.row_fingerprint for idempotent CSV ingest
+@Repository
+public class OrderFingerprintRepository {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+    @Value("${orders.fingerprint.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public long countOrders() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+        return count != null ? count : 0;
+    }
+
+    // Streams every stored fingerprint without materialising the result set
+    public void forEachFingerprint(LongConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT row_fingerprint FROM orders WHERE row_fingerprint IS NOT NULL",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            consumer.accept(resultSet.getLong(1));
+        });
+    }
+
+    // Returns the subset of the given fingerprints that already exist, one fingerprint index
+    // IN query per chunk
+    public Set<Long> findExisting(Collection<Long> fingerprints) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> keys = new ArrayList<>(fingerprints);
+        for (int from = 0; from < keys.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = keys.subList(from, Math.min(from + IN_CHUNK_SIZE, keys.size()));
+            namedParameterJdbcTemplate.query(
+                    "SELECT row_fingerprint FROM orders WHERE row_fingerprint IN (:fingerprints)",
+                    new MapSqlParameterSource("fingerprints", chunk),
+                    resultSet -> {
+                        existing.add(resultSet.getLong(1));
+                    });
+        }
+        return existing;
+    }
+}
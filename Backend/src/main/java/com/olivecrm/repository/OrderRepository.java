@@ -2,41 +2,23 @@ package com.olivecrm.repository;
 
 import com.olivecrm.entity.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Integer> {
+public interface OrderRepository extends JpaRepository<Order, Integer>, JpaSpecificationExecutor<Order>,
+        OrderRepositoryCustom {
         List<Order> findByCustomer_cID(int customerId);
 
         List<Order> findBySalesType(String salesType);
 
         List<Order> findBySalesDateBetween(LocalDate startDate, LocalDate endDate);
 
-        @Query("SELECT DISTINCT o FROM Order o WHERE " +
-                        "(:customerId IS NULL OR o.customer.cID = :customerId) AND " +
-                        "(:salesType IS NULL OR o.salesType = :salesType) AND " +
-                        "(:totalCost IS NULL OR ROUND(o.totalCost, 2) = ROUND(CAST(:totalCost AS double), 2)) AND " +
-                        "(:#{#productIds == null} = true OR o.product.pID IN (:productIds)) AND " +
-                        "(:singleDate IS NULL OR o.salesDate = :singleDate) AND " +
-                        "((:startDate IS NULL AND :endDate IS NULL) OR " +
-                        "(o.salesDate >= :startDate AND o.salesDate <= :endDate))")
-        Page<Order> findByFilters(
-                        @Param("customerId") Integer customerId,
-                        @Param("salesType") String salesType,
-                        @Param("totalCost") Double totalCost,
-                        @Param("productIds") List<Integer> productIds,
-                        @Param("singleDate") LocalDate singleDate,
-                        @Param("startDate") LocalDate startDate,
-                        @Param("endDate") LocalDate endDate,
-                        Pageable pageable);
-
         // Get the most recent order date
         @Query("SELECT MAX(o.salesDate) FROM Order o")
         LocalDate findMostRecentOrderDate();
@@ -0,0 +1,27 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.dto.DailySalesDTO;
+import com.olivecrm.dto.OrderRowDTO;
+import com.olivecrm.entity.Order;
+import com.olivecrm.util.OrderCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+    // Up to limit orders matching spec that follow the cursor in (sales_date DESC, id DESC)
+    // order, or precede it for a backward cursor. Backward slices come nearest first.
+    List<OrderRowDTO> findSlice(Specification<Order> spec, OrderCursor cursor, int limit);
+
+    // Flat order rows matching spec, each read with its customer and product in one joined query
+    Page<OrderRowDTO> findRows(Specification<Order> spec, Pageable pageable);
+
+    // { order count (Long), sum of total_cost (Double, 0 when nothing matches) } over the
+    // orders matching spec, computed by the database in one aggregate query
+    Object[] sumTotalCost(Specification<Order> spec);
+
+    // Order count, units and revenue per sales date of the dated orders matching spec, oldest first
+    List<DailySalesDTO> sumByDay(Specification<Order> spec);
+}
@@ -0,0 +1,180 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.dto.DailySalesDTO;
+import com.olivecrm.dto.OrderRowDTO;
+import com.olivecrm.entity.Customer;
+import com.olivecrm.entity.Order;
+import com.olivecrm.entity.Product;
+import com.olivecrm.util.OrderCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read side of the order listing. Rows are selected as OrderRowDTO from ORDERS joined to
+// CUSTOMER and PRODUCT in a single statement, rather than as Order entities whose eager
+// customer and product links cost one more select per distinct customer and product.
+//
+// Keyset pagination: instead of skipping OFFSET rows, each slice starts right after the
+// (sales_date, id) of the last row seen, so idx_orders_date_id serves any depth with
+// the same cost and no COUNT query is needed.
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderRowDTO> findSlice(Specification<Order> spec, OrderCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderRowDTO> query = cb.createQuery(OrderRowDTO.class);
+        Root<Order> root = query.from(Order.class);
+        Path<LocalDate> salesDate = root.get("salesDate");
+        Path<Integer> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filters = toPredicate(spec, root, query, cb);
+        if (filters != null) {
+            predicates.add(filters);
+        }
+        boolean backward = cursor != null && cursor.isBackward();
+        if (cursor != null) {
+            predicates.add(backward ? before(cb, salesDate, id, cursor) : after(cb, salesDate, id, cursor));
+        }
+
+        selectRow(cb, query, root).where(predicates.toArray(new Predicate[0]));
+        if (backward) {
+            query.orderBy(cb.asc(salesDate), cb.asc(id));
+        } else {
+            query.orderBy(cb.desc(salesDate), cb.desc(id));
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Page<OrderRowDTO> findRows(Specification<Order> spec, Pageable pageable) {
+        TypedQuery<OrderRowDTO> query = rowQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        // The count is skipped when the first page already holds every row
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public Object[] sumTotalCost(Specification<Order> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Order> root = query.from(Order.class);
+        query.multiselect(cb.count(root), cb.coalesce(cb.sum(root.<Double>get("totalCost")), 0.0));
+        Predicate filters = toPredicate(spec, root, query, cb);
+        if (filters != null) {
+            query.where(filters);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public List<DailySalesDTO> sumByDay(Specification<Order> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DailySalesDTO> query = cb.createQuery(DailySalesDTO.class);
+        Root<Order> root = query.from(Order.class);
+        Path<LocalDate> salesDate = root.get("salesDate");
+        query.select(cb.construct(DailySalesDTO.class, salesDate, cb.count(root),
+                cb.sumAsLong(root.get("quantity")), cb.sumAsDouble(root.get("totalCost"))));
+        Predicate filters = toPredicate(spec, root, query, cb);
+        query.where(filters != null ? cb.and(filters, cb.isNotNull(salesDate)) : cb.isNotNull(salesDate));
+        query.groupBy(salesDate).orderBy(cb.asc(salesDate));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private TypedQuery<OrderRowDTO> rowQuery(Specification<Order> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderRowDTO> query = cb.createQuery(OrderRowDTO.class);
+        Root<Order> root = query.from(Order.class);
+        selectRow(cb, query, root);
+        Predicate filters = toPredicate(spec, root, query, cb);
+        if (filters != null) {
+            query.where(filters);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Order> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> root = query.from(Order.class);
+        query.select(cb.count(root));
+        Predicate filters = toPredicate(spec, root, query, cb);
+        if (filters != null) {
+            query.where(filters);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // Left joins keep orders whose customer or product reference is empty, as the entity listing does
+    private static CriteriaQuery<OrderRowDTO> selectRow(CriteriaBuilder cb, CriteriaQuery<OrderRowDTO> query,
+                                                        Root<Order> root) {
+        Join<Order, Customer> customer = root.join("customer", JoinType.LEFT);
+        Join<Order, Product> product = root.join("product", JoinType.LEFT);
+        return query.select(cb.construct(OrderRowDTO.class,
+                root.get("id"),
+                customer.get("cID"),
+                customer.get("first_name"),
+                customer.get("last_name"),
+                product.get("pID"),
+                product.get("productName"),
+                product.get("productVariant"),
+                root.get("quantity"),
+                root.get("totalCost"),
+                root.get("orderMethod"),
+                root.get("salesDate"),
+                root.get("salesType"),
+                root.get("shippingMethod")));
+    }
+
+    private static Predicate toPredicate(Specification<Order> spec, Root<Order> root, CriteriaQuery<?> query,
+                                         CriteriaBuilder cb) {
+        return spec != null ? spec.toPredicate(root, query, cb) : null;
+    }
+
+    // Rows after the cursor in descending order. MySQL sorts NULL dates last when descending.
+    private static Predicate after(CriteriaBuilder cb, Path<LocalDate> salesDate, Path<Integer> id, OrderCursor cursor) {
+        if (cursor.getSalesDate() == null) {
+            return cb.and(cb.isNull(salesDate), cb.lessThan(id, cursor.getId()));
+        }
+        return cb.or(
+                cb.lessThan(salesDate, cursor.getSalesDate()),
+                cb.and(cb.equal(salesDate, cursor.getSalesDate()), cb.lessThan(id, cursor.getId())),
+                cb.isNull(salesDate));
+    }
+
+    // Rows before the cursor in descending order
+    private static Predicate before(CriteriaBuilder cb, Path<LocalDate> salesDate, Path<Integer> id, OrderCursor cursor) {
+        if (cursor.getSalesDate() == null) {
+            return cb.or(cb.isNotNull(salesDate), cb.greaterThan(id, cursor.getId()));
+        }
+        return cb.or(
+                cb.greaterThan(salesDate, cursor.getSalesDate()),
+                cb.and(cb.equal(salesDate, cursor.getSalesDate()), cb.greaterThan(id, cursor.getId())));
+    }
+}
@@ -0,0 +1,100 @@
+package com.olivecrm.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Streams the sales columns of ORDERS for the in-memory time series and order value sketches.
+// The scans stop at a given order id, so changes above it can be told apart from what was read.
+@Repository
+public class OrderSalesRepository {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    public interface SaleHandler {
+        void accept(int epochDay, int productId, int quantity, double totalCost, String salesType);
+    }
+
+    public interface OrderValueHandler {
+        void accept(int productId, String salesType, double totalCost);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+    @Value("${orders.sales.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    public long countDatedOrders() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE sales_date IS NOT NULL", Long.class);
+        return count != null ? count : 0;
+    }
+
+    // 0 when there are no orders
+    public int maxOrderId() {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM orders", Integer.class);
+        return maxId != null ? maxId : 0;
+    }
+
+    // Returns the subset of the given order ids that exist, one primary key IN query per chunk
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        List<Integer> keys = new ArrayList<>(ids);
+        for (int from = 0; from < keys.size(); from += IN_CHUNK_SIZE) {
+            List<Integer> chunk = keys.subList(from, Math.min(from + IN_CHUNK_SIZE, keys.size()));
+            namedParameterJdbcTemplate.query("SELECT id FROM orders WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", chunk),
+                    resultSet -> {
+                        existing.add(resultSet.getInt(1));
+                    });
+        }
+        return existing;
+    }
+
+    // Every dated order with an id up to maxOrderId in sales date order, read through
+    // idx_orders_date_id without materialising the result set
+    public void forEachDatedSale(int maxOrderId, SaleHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT sales_date, COALESCE(product_id, 0), quantity, total_cost, sales_type FROM orders " +
+                    "WHERE sales_date IS NOT NULL AND id <= ? ORDER BY sales_date",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setInt(1, maxOrderId);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            handler.accept((int) resultSet.getDate(1).toLocalDate().toEpochDay(), resultSet.getInt(2),
+                    resultSet.getInt(3), resultSet.getDouble(4), resultSet.getString(5));
+        });
+    }
+
+    // Product, sales type and total cost of every order with an id up to maxOrderId, dated
+    // or not, in id order
+    public void forEachOrderValue(int maxOrderId, OrderValueHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT COALESCE(product_id, 0), sales_type, total_cost FROM orders WHERE id <= ?",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setInt(1, maxOrderId);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            handler.accept(resultSet.getInt(1), resultSet.getString(2), resultSet.getDouble(3));
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.entity.Order;
+import com.olivecrm.repository.OrderCondition.Column;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Building blocks for the dynamic order filter. Each method returns null when its filter
+// is not supplied, and Specification.where/and skip nulls, so the generated SQL only
+// carries the predicates actually asked for and MySQL can pick an index for them.
+// conditions() is the one definition of the filter; byFilters and OrderExportRepository
+// both render it.
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> byFilters(Integer customerId, String salesType, Double totalCost,
+                                                 List<Integer> productIds, LocalDate singleDate,
+                                                 LocalDate startDate, LocalDate endDate) {
+        Specification<Order> spec = Specification.where(null);
+        for (OrderCondition condition : conditions(customerId, salesType, totalCost, productIds, singleDate,
+                startDate, endDate)) {
+            spec = spec.and(of(condition));
+        }
+        return spec;
+    }
+
+    // The supplied filters as ORDERS column conditions, in table order
+    public static List<OrderCondition> conditions(Integer customerId, String salesType, Double totalCost,
+                                                  List<Integer> productIds, LocalDate singleDate,
+                                                  LocalDate startDate, LocalDate endDate) {
+        List<OrderCondition> conditions = new ArrayList<>();
+        if (customerId != null) {
+            conditions.add(OrderCondition.equal(Column.CUSTOMER, customerId));
+        }
+        if (salesType != null) {
+            conditions.add(OrderCondition.equal(Column.SALES_TYPE, salesType));
+        }
+        if (totalCost != null) {
+            // Same match as ROUND(total_cost, 2) = ROUND(:totalCost, 2), written as a range
+            // so the column is not wrapped in a function
+            BigDecimal rounded = BigDecimal.valueOf(totalCost).setScale(2, RoundingMode.HALF_UP);
+            conditions.add(OrderCondition.atLeast(Column.TOTAL_COST,
+                    rounded.subtract(new BigDecimal("0.005")).doubleValue()));
+            conditions.add(OrderCondition.lessThan(Column.TOTAL_COST,
+                    rounded.add(new BigDecimal("0.005")).doubleValue()));
+        }
+        if (productIds != null && !productIds.isEmpty()) {
+            conditions.add(OrderCondition.in(Column.PRODUCT, productIds));
+        }
+        if (singleDate != null) {
+            conditions.add(OrderCondition.equal(Column.SALES_DATE, singleDate));
+        }
+        if (startDate != null) {
+            conditions.add(OrderCondition.atLeast(Column.SALES_DATE, startDate));
+        }
+        if (endDate != null) {
+            conditions.add(OrderCondition.atMost(Column.SALES_DATE, endDate));
+        }
+        return conditions;
+    }
+
+    public static Specification<Order> hasSalesType(String salesType) {
+        return salesType == null ? null : of(OrderCondition.equal(Column.SALES_TYPE, salesType));
+    }
+
+    public static Specification<Order> undated() {
+        return of(OrderCondition.isNull(Column.SALES_DATE));
+    }
+
+    private static Specification<Order> of(OrderCondition condition) {
+        return (root, query, cb) -> condition.toPredicate(root, cb);
+    }
+}
@@ -0,0 +1,167 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.service.CsvOrderRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Set-based bulk loading: parsed rows are batch inserted into a staging table of
+// their own, then merged into product, customer and orders with a few
+// INSERT ... SELECT statements instead of one ORM operation per row.
+// Every load gets its own table so concurrent loads never see each other's rows
+// and cleanup is a DROP instead of a DELETE of millions of rows.
+@Repository
+public class OrderStagingRepository {
+
+    private static final AtomicInteger LOAD_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${csv.import.jdbc-batch-size:100}")
+    private int jdbcBatchSize;
+
+    // DDL commits implicitly in MySQL, so call this outside of any transaction
+    public String createStagingTable() {
+        String table = "order_staging_" + System.currentTimeMillis() + "_" + LOAD_SEQUENCE.incrementAndGet();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "row_no INT NOT NULL PRIMARY KEY, " +
+                "sales_date DATE, " +
+                "sales_type VARCHAR(255), " +
+                "order_method VARCHAR(255), " +
+                "customer_id INT NOT NULL, " +
+                "names_provided BOOLEAN NOT NULL, " +
+                "first_name VARCHAR(255), " +
+                "last_name VARCHAR(255), " +
+                "zipcode VARCHAR(255), " +
+                "shipping_method VARCHAR(255), " +
+                "product_name VARCHAR(255), " +
+                "product_variant VARCHAR(255), " +
+                "product_price DOUBLE NOT NULL, " +
+                "quantity INT NOT NULL, " +
+                "total_cost DOUBLE NOT NULL, " +
+                "row_fingerprint BIGINT NOT NULL, " +
+                "INDEX idx_staging_customer (customer_id, row_no), " +
+                "INDEX idx_staging_fingerprint (row_fingerprint), " +
+                "INDEX idx_staging_product (product_name, product_variant, row_no))");
+        return table;
+    }
+
+    public void dropStagingTable(String table) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+    }
+
+    public void stage(String table, List<CsvOrderRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + table + " (row_no, sales_date, sales_type, order_method, customer_id, names_provided, " +
+                "first_name, last_name, zipcode, shipping_method, product_name, product_variant, product_price, quantity, " +
+                "total_cost, row_fingerprint) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        jdbcTemplate.batchUpdate(sql, rows, jdbcBatchSize, (ps, row) -> {
+            ps.setInt(1, row.getRowNumber());
+            if (row.getSalesDate() != null) {
+                ps.setDate(2, Date.valueOf(row.getSalesDate()));
+            } else {
+                ps.setNull(2, Types.DATE);
+            }
+            ps.setString(3, row.getSalesType());
+            ps.setString(4, row.getOrderMethod());
+            ps.setInt(5, row.getCustomerId());
+            ps.setBoolean(6, row.isNamesProvided());
+            ps.setString(7, row.getFirstName());
+            ps.setString(8, row.getLastName());
+            ps.setString(9, row.getZipCode());
+            ps.setString(10, row.getShippingMethod());
+            ps.setString(11, row.getProductName());
+            ps.setString(12, row.getProductVariant());
+            ps.setDouble(13, row.getProductPrice());
+            ps.setInt(14, row.getQuantity());
+            ps.setDouble(15, row.getTotalCost());
+            ps.setLong(16, row.getFingerprint());
+        });
+    }
+
+    // Inserts products not in the catalog yet, then sets every staged product to the
+    // price of its last row, as the row-by-row import ends up doing. Returns the new products.
+    // Staged names and variants are never NULL (the tokenizer yields empty strings), so plain
+    // equality matches the catalog here and in productJoin.
+    public int mergeProducts(String table) {
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO product (product_name, product_variant, individual_price) " +
+                "SELECT s.product_name, s.product_variant, MIN(s.product_price) FROM " + table + " s " +
+                "WHERE NOT EXISTS (SELECT 1 FROM product p " +
+                "WHERE p.product_name = s.product_name AND p.product_variant = s.product_variant) " +
+                "GROUP BY s.product_name, s.product_variant");
+        String sameProduct = "l.product_name = product.product_name AND l.product_variant = product.product_variant";
+        jdbcTemplate.update(
+                "UPDATE product SET individual_price = (SELECT s.product_price FROM " + table + " s " +
+                "WHERE s.row_no = (SELECT MAX(l.row_no) FROM " + table + " l WHERE " + sameProduct + ")) " +
+                "WHERE EXISTS (SELECT 1 FROM " + table + " l WHERE " + sameProduct + ")");
+        return inserted;
+    }
+
+    // Inserts new customers and updates existing ones in one statement. The last non-empty
+    // zipcode wins, and names are only overwritten when the file carries them: staged names
+    // are never NULL, so a NULL value means no row of the file had one.
+    public int mergeCustomers(String table) {
+        return jdbcTemplate.update(
+                "INSERT INTO customer (c_id, zipcode, first_name, last_name) " +
+                "SELECT c.customer_id, z.zipcode, n.first_name, n.last_name FROM " +
+                "(SELECT customer_id, " +
+                "MAX(CASE WHEN zipcode IS NOT NULL THEN row_no END) AS zip_row, " +
+                "MAX(CASE WHEN names_provided THEN row_no END) AS names_row " +
+                "FROM " + table + " GROUP BY customer_id) c " +
+                "LEFT JOIN " + table + " z ON z.row_no = c.zip_row " +
+                "LEFT JOIN " + table + " n ON n.row_no = c.names_row " +
+                "ON DUPLICATE KEY UPDATE " +
+                "zipcode = COALESCE(VALUES(zipcode), customer.zipcode), " +
+                "first_name = COALESCE(VALUES(first_name), customer.first_name), " +
+                "last_name = COALESCE(VALUES(last_name), customer.last_name)");
+    }
+
+    // Inserts one order per staged row in file order. With skipKnown set, rows whose
+    // fingerprint is already stored, or repeated earlier in the file, are left out.
+    // Returns the number of orders inserted.
+    public int insertOrders(String table, boolean skipKnown) {
+        String sql = "INSERT INTO orders (customer_id, product_id, quantity, total_cost, order_method, sales_date, " +
+                "sales_type, shipping_method, row_fingerprint) " +
+                "SELECT s.customer_id, p.p_id, s.quantity, s.total_cost, s.order_method, s.sales_date, " +
+                "s.sales_type, s.shipping_method, s.row_fingerprint FROM " + table + " s " + productJoin() +
+                (skipKnown ? "WHERE " + notKnown(table) : "");
+        return jdbcTemplate.update(sql + "ORDER BY s.row_no");
+    }
+
+    // Adds the orders insertOrders is about to write to the daily rollup, see
+    // DailySalesRollupRepository. Must run right before insertOrders, in the same
+    // transaction and with the same skipKnown, while the skip check still sees the same ORDERS.
+    public int addToDailyRollup(String table, boolean skipKnown) {
+        return jdbcTemplate.update(
+                "INSERT INTO daily_sales_rollup (sales_date, product_id, sales_type, order_count, units, revenue) " +
+                "SELECT s.sales_date, p.p_id, COALESCE(s.sales_type, ''), COUNT(*), SUM(s.quantity), SUM(s.total_cost) " +
+                "FROM " + table + " s " + productJoin() +
+                "WHERE s.sales_date IS NOT NULL " + (skipKnown ? "AND " + notKnown(table) : "") +
+                "GROUP BY s.sales_date, p.p_id, COALESCE(s.sales_type, '') " +
+                "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+                "units = units + VALUES(units), revenue = revenue + VALUES(revenue)");
+    }
+
+    // Like the product cache, take the oldest product should (name, variant) be duplicated
+    private static String productJoin() {
+        return "JOIN (SELECT product_name, product_variant, MIN(p_id) AS p_id FROM product " +
+                "GROUP BY product_name, product_variant) p " +
+                "ON p.product_name = s.product_name AND p.product_variant = s.product_variant ";
+    }
+
+    private static String notKnown(String table) {
+        return "NOT EXISTS (SELECT 1 FROM orders o WHERE o.row_fingerprint = s.row_fingerprint) " +
+                "AND NOT EXISTS (SELECT 1 FROM " + table + " e " +
+                "WHERE e.row_fingerprint = s.row_fingerprint AND e.row_no < s.row_no) ";
+    }
+}
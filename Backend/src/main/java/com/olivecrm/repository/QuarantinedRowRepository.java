@@ -0,0 +1,24 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.entity.QuarantinedRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface QuarantinedRowRepository extends JpaRepository<QuarantinedRow, Long> {
+    List<QuarantinedRow> findByImportJobIdOrderByRowNumber(long importJobId);
+
+    long countByImportJobId(long importJobId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM QuarantinedRow q WHERE q.importJobId = :importJobId")
+    int deleteByImportJobId(@Param("importJobId") long importJobId);
+}
@@ -0,0 +1,162 @@
+package com.olivecrm.service;
+
+import java.time.LocalDate;
+
+// One parsed and validated CSV sales row, independent of which upload layout it came from
+public class CsvOrderRow {
+    private int rowNumber;
+    private LocalDate salesDate;
+    private String salesType;
+    private String orderMethod;
+    private int customerId;
+    // Only set by the customer names layout, which overwrites both names
+    private boolean namesProvided;
+    private String firstName;
+    private String lastName;
+    private String zipCode;
+    private String shippingMethod;
+    private String productName;
+    private String productVariant;
+    private int quantity;
+    private double price;
+    private double productPrice;
+    private long fingerprint;
+    // Fields as read from the file; only kept when rejected rows are quarantined
+    private String[] rawRow;
+
+    // Getters and setters
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public void setRowNumber(int rowNumber) {
+        this.rowNumber = rowNumber;
+    }
+
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public String getSalesType() {
+        return salesType;
+    }
+
+    public void setSalesType(String salesType) {
+        this.salesType = salesType;
+    }
+
+    public String getOrderMethod() {
+        return orderMethod;
+    }
+
+    public void setOrderMethod(String orderMethod) {
+        this.orderMethod = orderMethod;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(int customerId) {
+        this.customerId = customerId;
+    }
+
+    public boolean isNamesProvided() {
+        return namesProvided;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setNames(String firstName, String lastName) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.namesProvided = true;
+    }
+
+    public String getZipCode() {
+        return zipCode;
+    }
+
+    public void setZipCode(String zipCode) {
+        this.zipCode = zipCode;
+    }
+
+    public String getShippingMethod() {
+        return shippingMethod;
+    }
+
+    public void setShippingMethod(String shippingMethod) {
+        this.shippingMethod = shippingMethod;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public String getProductVariant() {
+        return productVariant;
+    }
+
+    public void setProductVariant(String productVariant) {
+        this.productVariant = productVariant;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public double getProductPrice() {
+        return productPrice;
+    }
+
+    public void setProductPrice(double productPrice) {
+        this.productPrice = productPrice;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String[] getRawRow() {
+        return rawRow;
+    }
+
+    public void setRawRow(String[] rawRow) {
+        this.rawRow = rawRow;
+    }
+
+    // Order total as stored on ORDERS.total_cost
+    public double getTotalCost() {
+        return price * quantity;
+    }
+}
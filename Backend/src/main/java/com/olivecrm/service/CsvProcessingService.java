@@ -1,21 +1,49 @@
 package com.olivecrm.service;
 
+import com.olivecrm.config.CsvImportConfig;
+import com.olivecrm.dto.CsvValidationReportDTO;
 import com.olivecrm.entity.Customer;
 import com.olivecrm.entity.Order;
 import com.olivecrm.entity.Product;
+import com.olivecrm.entity.QuarantinedRow;
+import com.olivecrm.enums.CsvImportLayout;
+import com.olivecrm.repository.OrderBatchRepository;
+import com.olivecrm.repository.CustomerNameBatchRepository;
+import com.olivecrm.repository.DailySalesRollupRepository;
+import com.olivecrm.repository.ImportLookupRepository;
+import com.olivecrm.repository.OrderFingerprintRepository;
+import com.olivecrm.repository.OrderStagingRepository;
 import com.olivecrm.util.CsvReader;
+import com.olivecrm.util.CsvWriter;
+import com.olivecrm.util.IntObjectHashMap;
+import com.olivecrm.util.RowFingerprint;
+import com.olivecrm.util.SaleDateParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
 import java.io.InputStream;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @Service
 public class CsvProcessingService {
@@ -28,223 +56,766 @@ public class CsvProcessingService {
     @Autowired
     private CsvReader csvReader;
 
+    @Autowired
+    private OrderBatchRepository orderBatchRepository;
+
+    @Autowired
+    private OrderFingerprintRepository orderFingerprintRepository;
+
+    @Autowired
+    private OrderStagingRepository orderStagingRepository;
+
+    @Autowired
+    private DailySalesRollupRepository dailySalesRollupRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ImportLookupRepository importLookupRepository;
+
+    @Autowired
+    private CustomerNameBatchRepository customerNameBatchRepository;
+
+    @Autowired
+    @Qualifier("csvParseExecutor")
+    private ExecutorService csvParseExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CsvImportConfig csvImportConfig;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private IngestMetricsRegistry ingestMetricsRegistry;
+
+    @Value("${csv.import.chunk-size:1000}")
+    private int chunkSize;
+
+    // Orders an upload transaction reports to the sales listeners one by one; beyond this
+    // they are told to reload instead
+    @Value("${csv.import.sales-event-max-rows:100000}")
+    private int salesEventMaxRows;
+
+    // Rows an idempotent import checks against the fingerprint index before it loads all
+    // stored fingerprints into a Bloom filter; 0 never does
+    @Value("${csv.import.dedup.bloom-after-rows:200000}")
+    private long dedupBloomAfterRows;
+
+    // Number of leading rows inspected to tell dd/MM/yyyy from MM/dd/yyyy dates
+    @Value("${csv.import.date-sample-rows:1000}")
+    private int dateSampleRows;
+
     @Transactional
     public void processCsvFile(InputStream inputStream) throws Exception {
+        processCsvFile(inputStream, false);
+    }
+
+    // With idempotent set, rows whose fingerprint is already stored are skipped
+    @Transactional
+    public void processCsvFile(InputStream inputStream, boolean idempotent) throws Exception {
         logger.info("Starting to process CSV file");
-        List<String[]> csvData = csvReader.readCsv(inputStream);
-        logger.info("CSV file read successfully. Number of rows: {}", csvData.size());
-        
-        // Skip the header row
-        for (int i = 1; i < csvData.size(); i++) {
-            try {
-                String[] row = csvData.get(i);
-                logger.info("Processing row {}: {}", i, String.join(", ", row));
-                processRow(row);
-                logger.info("Row {} processed successfully", i);
-            } catch (Exception e) {
-                logger.error("Error processing row " + i + ": " + e.getMessage(), e);
-                throw new Exception("Error processing CSV file at row " + i, e);
-            }
-        }
-        logger.info("CSV file processing completed successfully");
+        processInOneTransaction(inputStream, CsvImportLayout.SALES, idempotent);
     }
 
     @Transactional
     public void processCustomerNamesCsv(InputStream inputStream) throws Exception {
+        processCustomerNamesCsv(inputStream, false);
+    }
+
+    @Transactional
+    public void processCustomerNamesCsv(InputStream inputStream, boolean idempotent) throws Exception {
         logger.info("Starting to process customer names CSV file");
-        List<String[]> csvData = csvReader.readCsv(inputStream);
-        logger.info("CSV file read successfully. Number of rows: {}", csvData.size());
-        
-        // Skip the header row
-        for (int i = 1; i < csvData.size(); i++) {
+        processInOneTransaction(inputStream, CsvImportLayout.CUSTOMER_NAMES, idempotent);
+    }
+
+    // Names-only enrichment of a customer names CSV: only Customer ID, First Name, Last Name
+    // and ZipCode are read, rows collapse to the last values seen per customer, and existing
+    // customers are updated in JDBC batches. Sale dates are not read, so the file's date
+    // format does not matter. Unknown customer ids are skipped; no customers, products or
+    // orders are created. Returns the number of customers updated.
+    @Transactional
+    public int enrichCustomerNames(InputStream inputStream) throws Exception {
+        logger.info("Starting names-only enrichment from customer names CSV file");
+        IngestMetrics metrics = ingestMetricsRegistry.start("CUSTOMER_NAMES enrichment " + LocalDateTime.now());
+        try {
+            IntObjectHashMap<CsvOrderRow> latest = new IntObjectHashMap<>(1024);
+            processInChunks(inputStream, this::processCustomerNameOnlyRow, false, 0, false, metrics, (chunk, rowsRead) -> {
+                long start = System.nanoTime();
+                for (CsvOrderRow row : chunk.rows) {
+                    CsvOrderRow previous = latest.get(row.getCustomerId());
+                    // Like a full import, an empty zipcode does not clear a known one
+                    if (previous != null && row.getZipCode() == null) {
+                        row.setZipCode(previous.getZipCode());
+                    }
+                    latest.put(row.getCustomerId(), row);
+                }
+                metrics.addStageTime(IngestMetrics.Stage.RESOLVE_CUSTOMER, System.nanoTime() - start);
+            });
+
+            List<CsvOrderRow> customers = new ArrayList<>(latest.size());
+            latest.forEachValue(customers::add);
+            // Ascending keys keep the upserts walking the primary key index in order
+            customers.sort(Comparator.comparingInt(CsvOrderRow::getCustomerId));
+            long start = System.nanoTime();
+            List<Integer> customerIds = new ArrayList<>(customers.size());
+            for (CsvOrderRow customer : customers) {
+                customerIds.add(customer.getCustomerId());
+            }
+            int updated = (int) importLookupRepository.countExistingCustomers(customerIds);
+            customerNameBatchRepository.updateNames(customers);
+            // The update bypasses Hibernate, so cached customers are stale now
+            entityCacheService.evictAfterCommit(Customer.class);
+            metrics.addStageTime(IngestMetrics.Stage.PERSIST, System.nanoTime() - start);
+            metrics.addRowsWritten(updated);
+            logger.info("Names-only enrichment completed successfully, {} customers updated, {} unknown ids skipped: {}",
+                    updated, customers.size() - updated, metrics.summary());
+            return updated;
+        } catch (Exception e) {
+            logger.error("Names-only enrichment failed: {}", metrics.summary());
+            throw e;
+        } finally {
+            ingestMetricsRegistry.finish(metrics);
+        }
+    }
+
+    private void processInOneTransaction(InputStream inputStream, CsvImportLayout layout, boolean idempotent) throws Exception {
+        IngestMetrics metrics = ingestMetricsRegistry.start(layout + " upload " + LocalDateTime.now());
+        try {
+            ProductCache products = new ProductCache(entityManager);
+            DuplicateRowFilter duplicates = idempotent
+                    ? new DuplicateRowFilter(orderFingerprintRepository, dedupBloomAfterRows)
+                    : null;
+            // One event for the whole upload, delivered when its transaction commits
+            OrderSalesChangedEvent.Builder sales = new OrderSalesChangedEvent.Builder(salesEventMaxRows);
+            processInChunks(inputStream, rowParserFor(layout), 0, false, metrics,
+                    (chunk, rowsRead) -> writeChunkOrFail(chunk.rows, products, duplicates, metrics, sales));
+            publish(sales);
+            logger.info("{} CSV file processing completed successfully: {}", layout, metrics.summary());
+        } catch (Exception e) {
+            logger.error("{} CSV file processing failed: {}", layout, metrics.summary());
+            throw e;
+        } finally {
+            ingestMetricsRegistry.finish(metrics);
+        }
+    }
+
+    public interface CheckpointListener {
+        // Called inside each chunk's transaction once its rows have been written.
+        // rejected holds the rows quarantined up to checkpointRow that are not stored yet.
+        void chunkCommitted(int checkpointRow, int rowsCommitted, int rowsSkipped,
+                            List<QuarantinedRow> rejected, int rowsRead);
+    }
+
+    // Runs the import of a background job. Unlike the upload endpoints, every chunk commits
+    // in its own transaction together with the job checkpoint, so a failure or restart only
+    // loses the chunk being written and the job can resume after resumeAfterRow.
+    // With quarantine set, rejected rows are handed to the listener instead of failing the
+    // job, so the file is imported in one pass and only the bad rows need fixing.
+    public int processImportJob(InputStream inputStream, CsvImportLayout layout, int resumeAfterRow, boolean idempotent,
+                                boolean quarantine, IngestMetrics metrics,
+                                CheckpointListener checkpointListener) throws Exception {
+        logger.info("Starting import job for {} CSV, resuming after row {}", layout, resumeAfterRow);
+        ProductCache[] products = { transactionTemplate.execute(status -> new ProductCache(entityManager)) };
+        DuplicateRowFilter duplicates = idempotent
+                ? new DuplicateRowFilter(orderFingerprintRepository, dedupBloomAfterRows)
+                : null;
+        int rowCount = processInChunks(inputStream, rowParserFor(layout), resumeAfterRow, quarantine, metrics, (chunk, rowsRead) -> {
+            List<CsvOrderRow> rows = chunk.rows;
+            if (!quarantine) {
+                if (rows.isEmpty()) {
+                    return;
+                }
+                int checkpointRow = rows.get(rows.size() - 1).getRowNumber();
+                inTransaction(() -> {
+                    OrderSalesChangedEvent.Builder sales = new OrderSalesChangedEvent.Builder(salesEventMaxRows);
+                    int written = writeChunkOrFail(rows, products[0], duplicates, metrics, sales);
+                    publish(sales);
+                    checkpointListener.chunkCommitted(checkpointRow, written, rows.size() - written,
+                            Collections.emptyList(), rowsRead);
+                });
+                return;
+            }
             try {
-                String[] row = csvData.get(i);
-                logger.info("Processing row {}: {}", i, String.join(", ", row));
-                processCustomerNameRow(row);
-                logger.info("Row {} processed successfully", i);
+                inTransaction(() -> {
+                    OrderSalesChangedEvent.Builder sales = new OrderSalesChangedEvent.Builder(salesEventMaxRows);
+                    int written = writeChunk(rows, products[0], duplicates, metrics, sales);
+                    publish(sales);
+                    checkpointListener.chunkCommitted(chunk.lastRowNumber, written, rows.size() - written,
+                            chunk.rejected, rowsRead);
+                });
             } catch (Exception e) {
-                logger.error("Error processing row " + i + ": " + e.getMessage(), e);
-                throw new Exception("Error processing CSV file at row " + i, e);
+                logger.warn("Chunk ending at row {} failed to write, retrying its rows one by one: {}",
+                        chunk.lastRowNumber, e.getMessage());
+                writeRowByRow(chunk, products, duplicates, metrics, checkpointListener, rowsRead);
+            }
+        });
+        logger.info("Import job CSV processing completed successfully: {}", metrics.summary());
+        return rowCount;
+    }
+
+    // Retries the rows of a chunk whose transaction rolled back, each in a transaction of its
+    // own with the checkpoint, so that only the rows that really fail get quarantined
+    private void writeRowByRow(ParsedChunk chunk, ProductCache[] products, DuplicateRowFilter duplicates,
+                               IngestMetrics metrics, CheckpointListener checkpointListener, int rowsRead) throws Exception {
+        // Products persisted by the rolled back transaction never reached the database
+        products[0] = transactionTemplate.execute(status -> new ProductCache(entityManager));
+        Deque<QuarantinedRow> parseRejects = new ArrayDeque<>(chunk.rejected);
+        for (CsvOrderRow row : chunk.rows) {
+            // Rows rejected while parsing are stored with the first checkpoint past them
+            List<QuarantinedRow> rejected = new ArrayList<>();
+            while (!parseRejects.isEmpty() && parseRejects.peekFirst().getRowNumber() < row.getRowNumber()) {
+                rejected.add(parseRejects.pollFirst());
             }
+            try {
+                inTransaction(() -> {
+                    OrderSalesChangedEvent.Builder sales = new OrderSalesChangedEvent.Builder(salesEventMaxRows);
+                    int written = writeChunk(Collections.singletonList(row), products[0], duplicates, metrics, sales);
+                    publish(sales);
+                    checkpointListener.chunkCommitted(row.getRowNumber(), written, 1 - written, rejected, rowsRead);
+                });
+            } catch (Exception e) {
+                metrics.recordRejected(e);
+                logger.warn("Quarantined row {}: {}", row.getRowNumber(), e.getMessage());
+                products[0] = transactionTemplate.execute(status -> new ProductCache(entityManager));
+                rejected.add(quarantined(row.getRowNumber(), row.getRawRow(), e));
+                inTransaction(() -> checkpointListener.chunkCommitted(row.getRowNumber(), 0, 0, rejected, rowsRead));
+            }
+        }
+        List<QuarantinedRow> remaining = new ArrayList<>(parseRejects);
+        inTransaction(() -> checkpointListener.chunkCommitted(chunk.lastRowNumber, 0, 0, remaining, rowsRead));
+    }
+
+    private static QuarantinedRow quarantined(int rowNumber, String[] rawRow, Exception error) {
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
         }
-        logger.info("Customer names CSV file processing completed successfully");
+        String reason = IngestMetrics.causeOf(error) + ": " + root.getMessage();
+        QuarantinedRow quarantined = new QuarantinedRow();
+        quarantined.setRowNumber(rowNumber);
+        quarantined.setReason(reason.length() > 1000 ? reason.substring(0, 1000) : reason);
+        quarantined.setRawRow(rawRow != null ? CsvWriter.formatRow(rawRow) : null);
+        quarantined.setCreatedAt(LocalDateTime.now());
+        return quarantined;
     }
 
-    private void processCustomerNameRow(String[] row) throws Exception {
+    // Bulk load for very large files (quarterly backfills). Rows are parsed on the pool as
+    // usual but only written to a staging table; once the whole file is staged, products,
+    // customers and orders are merged with a few set-based statements in one transaction.
+    // A failed load therefore leaves no orders behind and is simply rerun from the start.
+    // Returns the number of orders inserted.
+    public int processBulkLoad(InputStream inputStream, CsvImportLayout layout, boolean idempotent,
+                               IngestMetrics metrics) throws Exception {
+        logger.info("Starting bulk load of {} CSV", layout);
+        String table = orderStagingRepository.createStagingTable();
         try {
-            // Extract data from the row based on CSV structure with first and last name:
-            // Row No.,Sale Date,Sale Type,Digital,Customer ID,First Name,Last Name,ZipCode,Shipping Method,Product,Variant,Quantity,Price,Product Price
-            String saleDate = row[1];
-            String saleType = row[2];
-            String digital = row[3];
-            int customerId = Integer.parseInt(row[4]);
-            String firstName = row[5];
-            String lastName = row[6];
-            String zipCode = row[7].trim().isEmpty() ? null : row[7];
-            String shippingMethod = row[8];
-            String productName = row[9];
-            String productVariant = row[10];
-            int quantity = Integer.parseInt(row[11]);
-            double price = Double.parseDouble(row[12].replace(",", ".")); 
-            double productPrice = Double.parseDouble(row[13].replace(",", "."));
-
-            logger.info("Extracted data: saleDate={}, customerId={}, firstName={}, lastName={}, productName={}, quantity={}, price={}, productPrice={}", 
-                       saleDate, customerId, firstName, lastName, productName, quantity, price, productPrice);
-
-            // Update or create Customer with names
-            Customer customer = entityManager.find(Customer.class, customerId);
-            if (customer == null) {
-                logger.info("Creating new customer with ID: {}", customerId);
-                customer = new Customer();
-                customer.setCID(customerId);
-                customer.setFirst_name(firstName);
-                customer.setLast_name(lastName);
-                if (zipCode != null && !zipCode.trim().isEmpty()) {
-                    customer.setZipcode(zipCode);
+            int[] staged = new int[1];
+            processInChunks(inputStream, rowParserFor(layout), 0, false, metrics, (chunk, rowsRead) -> {
+                long start = System.nanoTime();
+                inTransaction(() -> orderStagingRepository.stage(table, chunk.rows));
+                metrics.addStageTime(IngestMetrics.Stage.PERSIST, System.nanoTime() - start);
+                staged[0] += chunk.rows.size();
+            });
+
+            int[] written = new int[1];
+            inTransaction(() -> {
+                long start = System.nanoTime();
+                int newProducts = orderStagingRepository.mergeProducts(table);
+                long productsDone = System.nanoTime();
+                int customerRows = orderStagingRepository.mergeCustomers(table);
+                long customersDone = System.nanoTime();
+                orderStagingRepository.addToDailyRollup(table, idempotent);
+                written[0] = orderStagingRepository.insertOrders(table, idempotent);
+                // The merged orders are not known one by one here
+                eventPublisher.publishEvent(OrderSalesChangedEvent.reload());
+                metrics.addStageTime(IngestMetrics.Stage.RESOLVE_PRODUCT, productsDone - start);
+                metrics.addStageTime(IngestMetrics.Stage.RESOLVE_CUSTOMER, customersDone - productsDone);
+                metrics.addStageTime(IngestMetrics.Stage.PERSIST, System.nanoTime() - customersDone);
+                logger.info("Bulk merge: {} new products, {} customer rows affected, {} orders inserted",
+                        newProducts, customerRows, written[0]);
+                // The merge bypasses Hibernate, so cached products and customers are stale now
+                entityCacheService.evictAfterCommit(Product.class, Customer.class);
+            });
+            metrics.addRowsWritten(written[0]);
+            metrics.addRowsSkipped(staged[0] - written[0]);
+            logger.info("Bulk load of {} CSV completed successfully: {}", layout, metrics.summary());
+            return written[0];
+        } finally {
+            orderStagingRepository.dropStagingTable(table);
+        }
+    }
+
+    // Dry run of an import. The whole file is parsed and validated on the parse pool exactly
+    // like a real import, but nothing is written: rejected rows are diagnosed per column and
+    // the distinct customers and products are compared with the database to tell how many
+    // would be created. Only the first maxErrors rejected rows are returned in detail.
+    public CsvValidationReportDTO validateCsv(InputStream inputStream, CsvImportLayout layout, int maxErrors) throws Exception {
+        IngestMetrics metrics = ingestMetricsRegistry.start(layout + " validation " + LocalDateTime.now());
+        try {
+            CsvValidationReportDTO report = new CsvValidationReportDTO();
+            Map<String, Long> errorsByColumn = new TreeMap<>();
+            List<CsvValidationReportDTO.RowError> errors = new ArrayList<>();
+            Set<Integer> customerIds = new HashSet<>();
+            Set<String> productKeys = new HashSet<>();
+            long[] validRows = new long[1];
+            long[] invalidRows = new long[1];
+            SaleDateParser[] dateParser = new SaleDateParser[1];
+
+            int rowCount = processInChunks(inputStream, rowParserFor(layout), 0, true, metrics, (chunk, rowsRead) -> {
+                dateParser[0] = chunk.dates;
+                for (CsvOrderRow row : chunk.rows) {
+                    customerIds.add(row.getCustomerId());
+                    productKeys.add(ProductCache.key(row.getProductName(), row.getProductVariant()));
                 }
-                entityManager.persist(customer);
-            } else {
-                logger.info("Updating existing customer with ID: {}", customerId);
-                customer.setFirst_name(firstName);
-                customer.setLast_name(lastName);
-                if (zipCode != null && !zipCode.trim().isEmpty()) {
-                    customer.setZipcode(zipCode);
+                validRows[0] += chunk.rows.size();
+                invalidRows[0] += chunk.rejected.size();
+                for (int i = 0; i < chunk.rejected.size(); i++) {
+                    QuarantinedRow rejected = chunk.rejected.get(i);
+                    List<String> columns = failingColumns(chunk.rejectedRaw.get(i), layout, chunk.dates);
+                    for (String column : columns) {
+                        errorsByColumn.merge(column, 1L, Long::sum);
+                    }
+                    if (errors.size() < maxErrors) {
+                        errors.add(new CsvValidationReportDTO.RowError(rejected.getRowNumber(), columns, rejected.getReason()));
+                    }
                 }
-                customer = entityManager.merge(customer);
+            });
+
+            long existingCustomers = importLookupRepository.countExistingCustomers(customerIds);
+            Set<String> existingProductKeys = new HashSet<>();
+            importLookupRepository.forEachProductKey((name, variant) -> {
+                String key = ProductCache.key(name, variant);
+                if (productKeys.contains(key)) {
+                    existingProductKeys.add(key);
+                }
+            });
+
+            report.setLayout(layout);
+            report.setRowsRead(Math.max(0, rowCount - 1));
+            report.setValidRows(validRows[0]);
+            report.setInvalidRows(invalidRows[0]);
+            if (dateParser[0] != null) {
+                report.setDateFormat(dateParser[0].getSlashFormat().getPattern());
+                report.setDateFormatAmbiguous(dateParser[0].isAmbiguous());
             }
-            logger.info("Customer processed successfully");
-
-            // Update or create Product
-            Product product = entityManager.createQuery("SELECT p FROM Product p WHERE p.productName = :name AND p.productVariant = :variant", Product.class)
-                    .setParameter("name", productName)
-                    .setParameter("variant", productVariant)
-                    .getResultStream().findFirst().orElse(null);
-            if (product == null) {
-                logger.info("Creating new product: {} - {}", productName, productVariant);
-                product = new Product();
-                product.setProductName(productName);
-                product.setProductVariant(productVariant);
-                product.setIndividualPrice(productPrice);
-                entityManager.persist(product);
+            report.setErrorsByColumn(errorsByColumn);
+            report.setErrors(errors);
+            report.setDistinctCustomers(customerIds.size());
+            report.setExistingCustomers(existingCustomers);
+            report.setNewCustomers(customerIds.size() - existingCustomers);
+            report.setDistinctProducts(productKeys.size());
+            report.setExistingProducts(existingProductKeys.size());
+            report.setNewProducts(productKeys.size() - existingProductKeys.size());
+            metrics.finish();
+            report.setElapsedMillis(metrics.snapshot().getElapsedMillis());
+            report.setRowsPerSecond(metrics.snapshot().getRowsPerSecond());
+            logger.info("{} CSV validation completed: {} valid rows, {} invalid rows, {}",
+                    layout, validRows[0], invalidRows[0], metrics.summary());
+            return report;
+        } finally {
+            ingestMetricsRegistry.finish(metrics);
+        }
+    }
+
+    // Names the columns of a rejected row that the layout's row parser cannot read;
+    // a column missing from a short row counts as failing too
+    private static List<String> failingColumns(String[] row, CsvImportLayout layout, SaleDateParser dates) {
+        String[] header = layout.getHeader();
+        List<String> columns = new ArrayList<>(1);
+        for (int i = 0; i < header.length; i++) {
+            String column = header[i];
+            boolean valid;
+            if (i >= row.length) {
+                valid = false;
+            } else if (column.equals("Sale Date")) {
+                valid = dates.tryParse(row[i]) != null;
+            } else if (column.equals("Customer ID") || column.equals("Quantity")) {
+                valid = isInteger(row[i]);
+            } else if (column.equals("Price") || column.equals("Product Price")) {
+                valid = isDecimal(row[i].replace(",", "."));
             } else {
-                logger.info("Updating existing product: {} - {}", productName, productVariant);
-                product.setIndividualPrice(productPrice);
-                product = entityManager.merge(product);
+                valid = true;
             }
-            logger.info("Product processed successfully");
-
-            // Create Order with relationships
-            Order order = new Order();
-            order.setCustomer(customer);
-            order.setProduct(product);
-            order.setQuantity(quantity);
-            order.setTotalCost(price * quantity);
-            order.setOrderMethod(digital);
-            order.setSalesDate(parseSaleDate(saleDate));
-            order.setSalesType(saleType);
-            order.setShippingMethod(shippingMethod);
-            entityManager.persist(order);
-            logger.info("Order created successfully with customer ID: {} and product ID: {}", customer.getCID(), product.getPID());
+            if (!valid) {
+                columns.add(column);
+            }
+        }
+        if (columns.isEmpty()) {
+            columns.add("Row");
+        }
+        return columns;
+    }
 
-        } catch (Exception e) {
-            logger.error("Error processing row: " + e.getMessage(), e);
-            throw new Exception("Error processing row: " + e.getMessage(), e);
+    private static boolean isInteger(String value) {
+        try {
+            Integer.parseInt(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
         }
     }
 
-    private void processRow(String[] row) throws Exception {
+    private static boolean isDecimal(String value) {
         try {
-            // Extract data from the row based on CSV structure:
-            // Row No.,Sale Date,Sale Type,Digital,Customer ID,ZipCode,Shipping Method,Product,Variant,Quantity,Price,Product Price
-            String saleDate = row[1];
-            String saleType = row[2];
-            String digital = row[3];
-            int customerId = Integer.parseInt(row[4]);
-            String zipCode = row[5].trim().isEmpty() ? null : row[5];  // Optional
-            String shippingMethod = row[6];
-            String productName = row[7];
-            String productVariant = row[8];
-            int quantity = Integer.parseInt(row[9]);
-            double price = Double.parseDouble(row[10].replace(",", ".")); // Handle both comma and dot decimals
-            double productPrice = Double.parseDouble(row[11].replace(",", ".")); // Handle both comma and dot decimals
-
-            logger.info("Extracted data: saleDate={}, customerId={}, productName={}, quantity={}, price={}, productPrice={}", 
-                       saleDate, customerId, productName, quantity, price, productPrice);
-
-            // Update or create Customer
-            Customer customer = entityManager.find(Customer.class, customerId);
-            if (customer == null) {
-                logger.info("Creating new customer with ID: {}", customerId);
-                customer = new Customer();
-                customer.setCID(customerId);
-                if (zipCode != null && !zipCode.trim().isEmpty()) {
-                    customer.setZipcode(zipCode);
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private interface RowParser {
+        CsvOrderRow parse(String[] row, SaleDateParser dates) throws Exception;
+    }
+
+    // Receives parsed chunks in file order; rowsRead is the last row number read so far
+    private interface ChunkSink {
+        void write(ParsedChunk chunk, int rowsRead) throws Exception;
+    }
+
+    // The rows of one chunk that parsed, and those rejected when rejects are quarantined
+    // (rejectedRaw holds the fields of each rejected row, in the same order)
+    private static class ParsedChunk {
+        final List<CsvOrderRow> rows;
+        final List<QuarantinedRow> rejected = new ArrayList<>();
+        final List<String[]> rejectedRaw = new ArrayList<>();
+        final int lastRowNumber;
+        final SaleDateParser dates;
+
+        ParsedChunk(int capacity, int lastRowNumber, SaleDateParser dates) {
+            this.rows = new ArrayList<>(capacity);
+            this.lastRowNumber = lastRowNumber;
+            this.dates = dates;
+        }
+    }
+
+    private RowParser rowParserFor(CsvImportLayout layout) {
+        return layout == CsvImportLayout.CUSTOMER_NAMES ? this::processCustomerNameRow : this::processRow;
+    }
+
+    // Streams the file through a bounded pipeline instead of loading every row up front:
+    //  - the calling thread reads the upload in chunks and hands each one to the parse pool,
+    //  - pool threads parse and validate chunks concurrently,
+    //  - the calling thread, which owns the transaction, writes parsed chunks in file order.
+    // At most maxChunksInFlight chunks are buffered, so memory stays flat for any file size.
+    // Rows up to skipThroughRow (the header, or everything committed before a resume) are skipped.
+    private int processInChunks(InputStream inputStream, RowParser rowParser, int skipThroughRow, boolean quarantine,
+                                IngestMetrics metrics, ChunkSink sink) throws Exception {
+        return processInChunks(inputStream, rowParser, true, skipThroughRow, quarantine, metrics, sink);
+    }
+
+    // Without orderRows the parser reads no sale date or order columns: the date format is
+    // not detected and rows are not fingerprinted
+    private int processInChunks(InputStream inputStream, RowParser rowParser, boolean orderRows, int skipThroughRow,
+                                boolean quarantine, IngestMetrics metrics, ChunkSink sink) throws Exception {
+        int maxChunksInFlight = csvImportConfig.getParserThreads() * 2;
+        Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        int[] rowsRead = new int[1];
+        SaleDateParser[] dateParser = new SaleDateParser[1];
+        try {
+            int rowCount = csvReader.readCsvInChunks(inputStream, chunkSize, (rows, firstRowNumber) -> {
+                if (orderRows && dateParser[0] == null) {
+                    // Settle the date format before any row is parsed, also when resuming
+                    dateParser[0] = detectDateFormat(rows);
+                    metrics.setDateFormat(dateParser[0].getSlashFormat().getPattern()
+                            + (dateParser[0].isAmbiguous() ? " (ambiguous)" : ""));
                 }
-                entityManager.persist(customer);
-            } else {
-                logger.info("Updating existing customer with ID: {}", customerId);
-                // Only update zipcode if new value is provided and not empty
-                if (zipCode != null && !zipCode.trim().isEmpty()) {
-                    customer.setZipcode(zipCode);
+                rowsRead[0] = firstRowNumber + rows.size() - 1;
+                metrics.setRowsRead(rowsRead[0]);
+                if (rowsRead[0] <= skipThroughRow) {
+                    return;
                 }
-                customer = entityManager.merge(customer);
+                SaleDateParser dates = dateParser[0];
+                inFlight.addLast(csvParseExecutor.submit(() -> parseChunk(rows, firstRowNumber, skipThroughRow, rowParser, orderRows, dates, quarantine, metrics)));
+                if (inFlight.size() >= maxChunksInFlight) {
+                    sink.write(awaitChunk(inFlight.pollFirst()), rowsRead[0]);
+                }
+            });
+            while (!inFlight.isEmpty()) {
+                sink.write(awaitChunk(inFlight.pollFirst()), rowsRead[0]);
             }
-            logger.info("Customer processed successfully");
-
-            // Update or create Product
-            Product product = entityManager.createQuery("SELECT p FROM Product p WHERE p.productName = :name AND p.productVariant = :variant", Product.class)
-                    .setParameter("name", productName)
-                    .setParameter("variant", productVariant)
-                    .getResultStream().findFirst().orElse(null);
-            if (product == null) {
-                logger.info("Creating new product: {} - {}", productName, productVariant);
-                product = new Product();
-                product.setProductName(productName);
-                product.setProductVariant(productVariant);
-                product.setIndividualPrice(productPrice);
-                entityManager.persist(product);
-            } else {
-                logger.info("Updating existing product: {} - {}", productName, productVariant);
-                product.setIndividualPrice(productPrice);
-                product = entityManager.merge(product);
+            return rowCount;
+        } finally {
+            for (Future<ParsedChunk> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+    }
+
+    // Detects dd/MM vs MM/dd from the first rows of the file (Sale Date is column 1 in both layouts)
+    private SaleDateParser detectDateFormat(List<String[]> firstRows) {
+        List<String> samples = new ArrayList<>(Math.min(firstRows.size(), dateSampleRows));
+        for (int i = 1; i < firstRows.size() && samples.size() < dateSampleRows; i++) {
+            String[] row = firstRows.get(i);
+            if (row.length > 1) {
+                samples.add(row[1]);
             }
-            logger.info("Product processed successfully");
-
-            // Create Order with relationships
-            Order order = new Order();
-            order.setCustomer(customer);
-            order.setProduct(product);
-            order.setQuantity(quantity);
-            order.setTotalCost(price * quantity);
-            order.setOrderMethod(digital);
-            order.setSalesDate(parseSaleDate(saleDate));
-            order.setSalesType(saleType);
-            order.setShippingMethod(shippingMethod);
-            entityManager.persist(order);
-            logger.info("Order created successfully with customer ID: {} and product ID: {}", customer.getCID(), product.getPID());
+        }
+        SaleDateParser dates = SaleDateParser.detect(samples);
+        if (dates.isAmbiguous()) {
+            logger.warn("Sale dates in the first {} rows fit both dd/MM/yyyy and MM/dd/yyyy; assuming {}",
+                    samples.size(), dates.getSlashFormat().getPattern());
+        } else {
+            logger.info("Detected sale date format {}", dates.getSlashFormat().getPattern());
+        }
+        return dates;
+    }
 
+    // Row content is only logged at DEBUG and for rejected rows; at INFO one row number in
+    // every csv.import.log-sample-every shows progress. Without quarantine the first
+    // rejected row fails the chunk.
+    private ParsedChunk parseChunk(List<String[]> rows, int firstRowNumber, int skipThroughRow, RowParser rowParser,
+                                   boolean orderRows, SaleDateParser dates, boolean quarantine,
+                                   IngestMetrics metrics) throws Exception {
+        long start = System.nanoTime();
+        ParsedChunk parsedChunk = new ParsedChunk(rows.size(), firstRowNumber + rows.size() - 1, dates);
+        try {
+            for (int offset = 0; offset < rows.size(); offset++) {
+                int i = firstRowNumber + offset;
+                // Skip the header row and rows already committed
+                if (i <= skipThroughRow) {
+                    continue;
+                }
+                String[] row = rows.get(offset);
+                if (metrics.isSampled(i)) {
+                    logger.info("{}: reached row {}", metrics.getImportName(), i);
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Processing row {}: {}", i, String.join(", ", row));
+                }
+                try {
+                    CsvOrderRow parsed = rowParser.parse(row, dates);
+                    parsed.setRowNumber(i);
+                    if (orderRows) {
+                        parsed.setFingerprint(RowFingerprint.of(parsed.getSalesDate(), parsed.getCustomerId(),
+                                parsed.getProductName(), parsed.getProductVariant(), parsed.getQuantity(),
+                                parsed.getTotalCost()));
+                    }
+                    if (quarantine) {
+                        parsed.setRawRow(row);
+                    }
+                    parsedChunk.rows.add(parsed);
+                } catch (Exception e) {
+                    metrics.recordRejected(e);
+                    logger.warn("Rejected row {} ({}): {}", i, e.getMessage(), String.join(", ", row));
+                    if (!quarantine) {
+                        throw new Exception("Error processing CSV file at row " + i, e);
+                    }
+                    parsedChunk.rejected.add(quarantined(i, row, e));
+                    parsedChunk.rejectedRaw.add(row);
+                }
+            }
+        } finally {
+            metrics.addStageTime(IngestMetrics.Stage.PARSE, System.nanoTime() - start);
+        }
+        return parsedChunk;
+    }
+
+    private static ParsedChunk awaitChunk(Future<ParsedChunk> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private interface TransactionalWork {
+        void run() throws Exception;
+    }
+
+    private void inTransaction(TransactionalWork work) throws Exception {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    work.run();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CheckedWorkException(e);
+                }
+            });
+        } catch (CheckedWorkException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    // Carries a checked exception out of a TransactionCallback so the transaction rolls back
+    private static class CheckedWorkException extends RuntimeException {
+        CheckedWorkException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    // Drops already ingested rows when a duplicate filter is given, prefetches the chunk's
+    // customers in one go, applies the rows, then writes the orders as one JDBC batch and
+    // clears the persistence context so it never holds more than one chunk worth of entities.
+    // The orders written are added to sales, for the caller to publish once per transaction.
+    // Returns the number of orders written.
+    private int writeChunk(List<CsvOrderRow> parsedRows, ProductCache products, DuplicateRowFilter duplicates,
+                           IngestMetrics metrics, OrderSalesChangedEvent.Builder sales) throws Exception {
+        if (duplicates != null) {
+            int chunkRows = parsedRows.size();
+            parsedRows = duplicates.removeKnown(parsedRows);
+            metrics.addRowsSkipped(chunkRows - parsedRows.size());
+        }
+        long start = System.nanoTime();
+        CustomerResolver customers = new CustomerResolver(entityManager, parsedRows);
+        long customerNanos = System.nanoTime() - start;
+        long productNanos = 0;
+        List<Order> pendingOrders = new ArrayList<>(parsedRows.size());
+        for (CsvOrderRow parsed : parsedRows) {
+            int i = parsed.getRowNumber();
+            try {
+                // Update or create Customer (written once per chunk on flush)
+                long t0 = System.nanoTime();
+                Customer customer = customers.resolve(parsed);
+                // Resolve Product from the per-import cache
+                long t1 = System.nanoTime();
+                Product product = products.resolve(parsed.getProductName(), parsed.getProductVariant(), parsed.getProductPrice());
+                long t2 = System.nanoTime();
+                customerNanos += t1 - t0;
+                productNanos += t2 - t1;
+
+                pendingOrders.add(createOrder(parsed, customer, product));
+            } catch (Exception e) {
+                logger.warn("Rejected row {} ({}): customerId={}, product={} {}", i, e.getMessage(),
+                        parsed.getCustomerId(), parsed.getProductName(), parsed.getProductVariant());
+                throw new Exception("Error processing CSV file at row " + i, e);
+            }
+        }
+        metrics.addStageTime(IngestMetrics.Stage.RESOLVE_CUSTOMER, customerNanos);
+        metrics.addStageTime(IngestMetrics.Stage.RESOLVE_PRODUCT, productNanos);
+
+        start = System.nanoTime();
+        try {
+            // Customers and products must reach the database before the orders referencing them
+            entityManager.flush();
+            orderBatchRepository.insertAll(pendingOrders);
+            dailySalesRollupRepository.add(pendingOrders);
+            sales.add(pendingOrders);
+            entityManager.clear();
+        } finally {
+            metrics.addStageTime(IngestMetrics.Stage.PERSIST, System.nanoTime() - start);
+        }
+        if (duplicates != null) {
+            duplicates.remember(parsedRows);
+        }
+        metrics.addRowsWritten(pendingOrders.size());
+        return pendingOrders.size();
+    }
+
+    private void publish(OrderSalesChangedEvent.Builder sales) {
+        if (!sales.isEmpty()) {
+            eventPublisher.publishEvent(sales.build());
+        }
+    }
+
+    // Write for fail-fast imports, where the first failure ends the import
+    private int writeChunkOrFail(List<CsvOrderRow> parsedRows, ProductCache products, DuplicateRowFilter duplicates,
+                                 IngestMetrics metrics, OrderSalesChangedEvent.Builder sales) throws Exception {
+        try {
+            return writeChunk(parsedRows, products, duplicates, metrics, sales);
         } catch (Exception e) {
-            logger.error("Error processing row: " + e.getMessage(), e);
+            metrics.recordRejected(e);
+            throw e;
+        }
+    }
+
+    private CsvOrderRow processCustomerNameRow(String[] row, SaleDateParser dates) throws Exception {
+        try {
+            // Extract data from the row based on CSV structure with first and last name:
+            // Row No.,Sale Date,Sale Type,Digital,Customer ID,First Name,Last Name,ZipCode,Shipping Method,Product,Variant,Quantity,Price,Product Price
+            CsvOrderRow parsed = new CsvOrderRow();
+            parsed.setSalesDate(dates.parse(row[1]));
+            parsed.setSalesType(row[2]);
+            parsed.setOrderMethod(row[3]);
+            parsed.setCustomerId(Integer.parseInt(row[4]));
+            parsed.setNames(row[5], row[6]);
+            parsed.setZipCode(row[7].trim().isEmpty() ? null : row[7]);
+            parsed.setShippingMethod(row[8]);
+            parsed.setProductName(row[9]);
+            parsed.setProductVariant(row[10]);
+            parsed.setQuantity(Integer.parseInt(row[11]));
+            parsed.setPrice(Double.parseDouble(row[12].replace(",", ".")));
+            parsed.setProductPrice(Double.parseDouble(row[13].replace(",", ".")));
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Extracted data: saleDate={}, customerId={}, firstName={}, lastName={}, productName={}, quantity={}, price={}, productPrice={}", 
+                           parsed.getSalesDate(), parsed.getCustomerId(), parsed.getFirstName(), parsed.getLastName(),
+                           parsed.getProductName(), parsed.getQuantity(), parsed.getPrice(), parsed.getProductPrice());
+            }
+            return parsed;
+
+        } catch (Exception e) {
+            // Logged once with the raw row where the rejection is recorded
+            throw new Exception("Error processing row: " + e.getMessage(), e);
+        }
+    }
+
+    // Reads only the customer columns of the customer names layout:
+    // Row No.,Sale Date,Sale Type,Digital,Customer ID,First Name,Last Name,ZipCode,...
+    private CsvOrderRow processCustomerNameOnlyRow(String[] row, SaleDateParser dates) throws Exception {
+        try {
+            CsvOrderRow parsed = new CsvOrderRow();
+            parsed.setCustomerId(Integer.parseInt(row[4]));
+            parsed.setNames(row[5], row[6]);
+            parsed.setZipCode(row[7].trim().isEmpty() ? null : row[7]);
+            return parsed;
+        } catch (Exception e) {
+            // Logged once with the raw row where the rejection is recorded
             throw new Exception("Error processing row: " + e.getMessage(), e);
         }
     }
 
-    private LocalDate parseSaleDate(String saleDate) {
-        DateTimeFormatter[] formatters = {
-            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd")
-        };
+    private CsvOrderRow processRow(String[] row, SaleDateParser dates) throws Exception {
+        try {
+            // Extract data from the row based on CSV structure:
+            // Row No.,Sale Date,Sale Type,Digital,Customer ID,ZipCode,Shipping Method,Product,Variant,Quantity,Price,Product Price
+            CsvOrderRow parsed = new CsvOrderRow();
+            parsed.setSalesDate(dates.parse(row[1]));
+            parsed.setSalesType(row[2]);
+            parsed.setOrderMethod(row[3]);
+            parsed.setCustomerId(Integer.parseInt(row[4]));
+            parsed.setZipCode(row[5].trim().isEmpty() ? null : row[5]);  // Optional
+            parsed.setShippingMethod(row[6]);
+            parsed.setProductName(row[7]);
+            parsed.setProductVariant(row[8]);
+            parsed.setQuantity(Integer.parseInt(row[9]));
+            parsed.setPrice(Double.parseDouble(row[10].replace(",", "."))); // Handle both comma and dot decimals
+            parsed.setProductPrice(Double.parseDouble(row[11].replace(",", "."))); // Handle both comma and dot decimals
 
-        for (DateTimeFormatter formatter : formatters) {
-            try {
-                return LocalDate.parse(saleDate, formatter);
-            } catch (DateTimeParseException e) {
-                // Try the next formatter
+            if (logger.isDebugEnabled()) {
+                logger.debug("Extracted data: saleDate={}, customerId={}, productName={}, quantity={}, price={}, productPrice={}", 
+                           parsed.getSalesDate(), parsed.getCustomerId(), parsed.getProductName(),
+                           parsed.getQuantity(), parsed.getPrice(), parsed.getProductPrice());
             }
+            return parsed;
+
+        } catch (Exception e) {
+            // Logged once with the raw row where the rejection is recorded
+            throw new Exception("Error processing row: " + e.getMessage(), e);
         }
+    }
 
-        logger.error("Unable to parse date: {}", saleDate);
-        throw new IllegalArgumentException("Unable to parse date: " + saleDate);
+    private Order createOrder(CsvOrderRow row, Customer customer, Product product) {
+        // Create Order with relationships
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setProduct(product);
+        order.setQuantity(row.getQuantity());
+        order.setTotalCost(row.getTotalCost());
+        order.setOrderMethod(row.getOrderMethod());
+        order.setSalesDate(row.getSalesDate());
+        order.setSalesType(row.getSalesType());
+        order.setShippingMethod(row.getShippingMethod());
+        order.setRowFingerprint(row.getFingerprint());
+        logger.debug("Order queued successfully with customer ID: {} and product ID: {}", customer.getCID(), product.getPID());
+        return order;
     }
 }
@@ -0,0 +1,88 @@
+package com.olivecrm.service;
+
+import com.olivecrm.entity.Customer;
+import com.olivecrm.util.IntObjectHashMap;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Chunk-scoped customer lookup. All customers referenced by a chunk are loaded with
+// IN queries up front, and zipcode/name changes are applied to the managed entities
+// in memory, so each customer gets at most one INSERT or UPDATE when the chunk flushes.
+public class CustomerResolver {
+
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
+    private final EntityManager entityManager;
+    private final IntObjectHashMap<Customer> customers;
+
+    public CustomerResolver(EntityManager entityManager, List<CsvOrderRow> rows) {
+        this.entityManager = entityManager;
+        this.customers = new IntObjectHashMap<>(rows.size());
+        prefetch(rows);
+    }
+
+    private void prefetch(List<CsvOrderRow> rows) {
+        int[] ids = new int[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = rows.get(i).getCustomerId();
+        }
+        Arrays.sort(ids);
+
+        List<Integer> batch = new ArrayList<>(Math.min(ids.length, IN_CLAUSE_LIMIT));
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0 && ids[i] == ids[i - 1]) {
+                continue;
+            }
+            batch.add(ids[i]);
+            if (batch.size() == IN_CLAUSE_LIMIT) {
+                load(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            load(batch);
+        }
+    }
+
+    private void load(List<Integer> ids) {
+        List<Customer> found = entityManager
+                .createQuery("SELECT c FROM Customer c WHERE c.cID IN :ids", Customer.class)
+                .setParameter("ids", ids)
+                // A large import would otherwise push the hot customers out of the second-level cache
+                .setHint("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS)
+                .getResultList();
+        for (Customer customer : found) {
+            customers.put(customer.getCID(), customer);
+        }
+    }
+
+    // Returns the managed customer for the row, creating it on first sight in the chunk
+    public Customer resolve(CsvOrderRow row) {
+        Customer customer = customers.get(row.getCustomerId());
+        if (customer == null) {
+            customer = new Customer();
+            customer.setCID(row.getCustomerId());
+            applyChanges(customer, row);
+            entityManager.persist(customer);
+            customers.put(customer.getCID(), customer);
+        } else {
+            applyChanges(customer, row);
+        }
+        return customer;
+    }
+
+    private static void applyChanges(Customer customer, CsvOrderRow row) {
+        if (row.isNamesProvided()) {
+            customer.setFirst_name(row.getFirstName());
+            customer.setLast_name(row.getLastName());
+        }
+        // Only update zipcode if new value is provided and not empty
+        if (row.getZipCode() != null && !row.getZipCode().trim().isEmpty()) {
+            customer.setZipcode(row.getZipCode());
+        }
+    }
+}
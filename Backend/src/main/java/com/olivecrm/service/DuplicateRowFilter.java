@@ -0,0 +1,81 @@
+package com.olivecrm.service;
+
+import com.olivecrm.repository.OrderFingerprintRepository;
+import com.olivecrm.util.BloomFilter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Per-import filter that drops CSV rows whose fingerprint is already stored.
+// Each chunk's fingerprints are looked up in idx_orders_row_fingerprint with IN queries,
+// so a daily upload costs the size of the file, not of ORDERS. Only once an import has
+// checked bloomAfterRows rows, i.e. is a large backfill, is a Bloom filter of all stored
+// fingerprints built; from then on only the rows it cannot rule out are looked up.
+// Orders that predate fingerprints are filled in once by the V6 migration.
+public class DuplicateRowFilter {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final OrderFingerprintRepository fingerprintRepository;
+    private final long bloomAfterRows;
+    private BloomFilter knownFingerprints;
+    private long rowsChecked;
+    private long duplicatesSkipped;
+
+    // bloomAfterRows <= 0 never builds the Bloom filter
+    public DuplicateRowFilter(OrderFingerprintRepository fingerprintRepository, long bloomAfterRows) {
+        this.fingerprintRepository = fingerprintRepository;
+        this.bloomAfterRows = bloomAfterRows;
+    }
+
+    // Returns the rows of the chunk that are neither stored already nor repeated earlier in the chunk
+    public List<CsvOrderRow> removeKnown(List<CsvOrderRow> rows) {
+        rowsChecked += rows.size();
+        if (knownFingerprints == null && bloomAfterRows > 0 && rowsChecked > bloomAfterRows) {
+            buildBloomFilter();
+        }
+        List<Long> candidates = new ArrayList<>(rows.size());
+        for (CsvOrderRow row : rows) {
+            if (knownFingerprints == null || knownFingerprints.mightContain(row.getFingerprint())) {
+                candidates.add(row.getFingerprint());
+            }
+        }
+        Set<Long> stored = fingerprintRepository.findExisting(candidates);
+
+        List<CsvOrderRow> newRows = new ArrayList<>(rows.size());
+        Set<Long> seenInChunk = new HashSet<>();
+        for (CsvOrderRow row : rows) {
+            if (stored.contains(row.getFingerprint()) || !seenInChunk.add(row.getFingerprint())) {
+                duplicatesSkipped++;
+            } else {
+                newRows.add(row);
+            }
+        }
+        return newRows;
+    }
+
+    // Records rows that were just written so later chunks of the same file see them. Until
+    // the Bloom filter exists the lookups find them in the database.
+    public void remember(List<CsvOrderRow> rows) {
+        if (knownFingerprints == null) {
+            return;
+        }
+        for (CsvOrderRow row : rows) {
+            knownFingerprints.put(row.getFingerprint());
+        }
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    private void buildBloomFilter() {
+        long existing = fingerprintRepository.countOrders();
+        // Headroom for the rest of the import, which is at least as large again
+        BloomFilter filter = new BloomFilter(Math.max(existing, rowsChecked) * 2, FALSE_POSITIVE_RATE);
+        fingerprintRepository.forEachFingerprint(filter::put);
+        knownFingerprints = filter;
+    }
+}
@@ -0,0 +1,82 @@
+package com.olivecrm.service;
+
+import com.olivecrm.dto.CacheStatisticsDTO;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Second-level cache housekeeping. Writes made through Hibernate keep the Customer and
+// Product regions up to date by themselves; the JDBC ingest paths (staging merge,
+// names-only upsert) bypass Hibernate and have to evict what they touched here.
+@Service
+public class EntityCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheService.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Evicts the entity regions and all cached query results once the current transaction
+    // completes, so no reader can put the old rows back before the new ones are visible.
+    // Without a transaction the eviction happens right away.
+    public void evictAfterCommit(Class<?>... entityClasses) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(entityClasses);
+                }
+            });
+        } else {
+            evict(entityClasses);
+        }
+    }
+
+    private void evict(Class<?>... entityClasses) {
+        Cache cache = sessionFactory().getCache();
+        for (Class<?> entityClass : entityClasses) {
+            cache.evictEntityData(entityClass);
+        }
+        cache.evictQueryRegions();
+        logger.debug("Evicted second-level cache for {}", Arrays.toString(entityClasses));
+    }
+
+    public CacheStatisticsDTO getStatistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+        CacheStatisticsDTO dto = new CacheStatisticsDTO();
+        dto.setStatisticsEnabled(statistics.isStatisticsEnabled());
+        dto.setSecondLevelCacheHits(statistics.getSecondLevelCacheHitCount());
+        dto.setSecondLevelCacheMisses(statistics.getSecondLevelCacheMissCount());
+        dto.setSecondLevelCachePuts(statistics.getSecondLevelCachePutCount());
+        dto.setQueryCacheHits(statistics.getQueryCacheHitCount());
+        dto.setQueryCacheMisses(statistics.getQueryCacheMissCount());
+        dto.setQueryCachePuts(statistics.getQueryCachePutCount());
+
+        List<CacheStatisticsDTO.RegionStatistics> regions = new ArrayList<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.add(new CacheStatisticsDTO.RegionStatistics(regionName, region.getHitCount(),
+                        region.getMissCount(), region.getPutCount(), region.getElementCountInMemory()));
+            }
+        }
+        dto.setRegions(regions);
+        return dto;
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
@@ -0,0 +1,248 @@
+package com.olivecrm.service;
+
+import com.olivecrm.dto.IngestMetricsDTO;
+import com.olivecrm.entity.ImportJob;
+import com.olivecrm.entity.QuarantinedRow;
+import com.olivecrm.enums.CsvImportLayout;
+import com.olivecrm.repository.ImportJobRepository;
+import com.olivecrm.repository.QuarantinedRowRepository;
+import com.olivecrm.util.CsvTokenizer;
+import com.olivecrm.util.CsvWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+@Service
+public class ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private CsvProcessingService csvProcessingService;
+
+    @Autowired
+    private IngestMetricsRegistry ingestMetricsRegistry;
+
+    @Autowired
+    private QuarantinedRowRepository quarantinedRowRepository;
+
+    @Autowired
+    @Qualifier("csvImportJobExecutor")
+    private ExecutorService csvImportJobExecutor;
+
+    // Uploads are spooled here so a job can be resumed after a restart
+    @Value("${csv.import.spool-dir:${java.io.tmpdir}/olivecrm-imports}")
+    private String spoolDir;
+
+    public ImportJob submit(MultipartFile file, CsvImportLayout layout, boolean idempotent,
+                            boolean bulk, boolean quarantine) throws IOException {
+        if (bulk && quarantine) {
+            throw new IllegalArgumentException("Bulk loads merge the file as a whole and cannot quarantine rows");
+        }
+        Path directory = Paths.get(spoolDir);
+        Files.createDirectories(directory);
+        Path storedFile = Files.createTempFile(directory, "import-", ".csv");
+        file.transferTo(storedFile);
+
+        ImportJob job = new ImportJob();
+        job.setFileName(file.getOriginalFilename());
+        job.setLayout(layout);
+        job.setIdempotent(idempotent);
+        job.setBulk(bulk);
+        job.setQuarantine(quarantine);
+        job.setStatus(ImportJob.Status.QUEUED);
+        job.setStoredFile(storedFile.toString());
+        job.setCreatedAt(LocalDateTime.now());
+        job = importJobRepository.save(job);
+
+        logger.info("Queued import job {} for file {}", job.getId(), job.getFileName());
+        schedule(job.getId());
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(long jobId) {
+        return importJobRepository.findById(jobId);
+    }
+
+    public List<ImportJob> getRecentJobs() {
+        return importJobRepository.findTop20ByOrderByIdDesc();
+    }
+
+    // Restarts a failed job from its last committed checkpoint
+    public ImportJob resume(long jobId) {
+        ImportJob job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Import job not found with id: " + jobId));
+        if (job.getStatus() != ImportJob.Status.FAILED) {
+            throw new IllegalStateException("Only failed import jobs can be resumed, job " + jobId + " is " + job.getStatus());
+        }
+        job.setStatus(ImportJob.Status.QUEUED);
+        job.setErrorMessage(null);
+        job.setFinishedAt(null);
+        job = importJobRepository.save(job);
+        schedule(jobId);
+        return job;
+    }
+
+    public List<QuarantinedRow> getQuarantinedRows(long jobId) {
+        return quarantinedRowRepository.findByImportJobIdOrderByRowNumber(jobId);
+    }
+
+    // The quarantined rows as a CSV in the job's layout, with the source row number and the
+    // reason appended. Once fixed, the file can be sent back through resubmitQuarantine.
+    public byte[] exportQuarantinedRows(long jobId) throws IOException {
+        ImportJob job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Import job not found with id: " + jobId));
+        String[] header = job.getLayout().getHeader();
+        int columns = header.length;
+
+        StringBuilder csvContent = new StringBuilder();
+        String[] headerRow = Arrays.copyOf(header, columns + 2);
+        headerRow[columns] = "Source Row";
+        headerRow[columns + 1] = "Error";
+        csvContent.append(CsvWriter.formatRow(headerRow)).append('\n');
+        for (QuarantinedRow quarantined : quarantinedRowRepository.findByImportJobIdOrderByRowNumber(jobId)) {
+            String[] fields = new String[0];
+            if (quarantined.getRawRow() != null) {
+                try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(quarantined.getRawRow()))) {
+                    String[] raw = tokenizer.nextRow();
+                    fields = raw != null ? raw : fields;
+                }
+            }
+            // Pad short rows so the appended columns always line up with the header
+            String[] row = Arrays.copyOf(fields, Math.max(fields.length, columns) + 2);
+            for (int i = fields.length; i < row.length - 2; i++) {
+                row[i] = "";
+            }
+            row[row.length - 2] = String.valueOf(quarantined.getRowNumber());
+            row[row.length - 1] = quarantined.getReason();
+            csvContent.append(CsvWriter.formatRow(row)).append('\n');
+        }
+        return csvContent.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Imports the fixed quarantined rows of a job as a new quarantine job with the same
+    // layout. The old entries are dropped; rows that are still invalid are quarantined
+    // again under the new job.
+    public ImportJob resubmitQuarantine(long jobId, MultipartFile fixedRows) throws IOException {
+        ImportJob job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Import job not found with id: " + jobId));
+        if (job.getStatus() == ImportJob.Status.QUEUED || job.getStatus() == ImportJob.Status.RUNNING) {
+            throw new IllegalStateException("Import job " + jobId + " is still " + job.getStatus());
+        }
+        ImportJob resubmitted = submit(fixedRows, job.getLayout(), job.isIdempotent(), false, true);
+        int dropped = quarantinedRowRepository.deleteByImportJobId(jobId);
+        logger.info("Resubmitted {} quarantined rows of import job {} as job {}", dropped, jobId, resubmitted.getId());
+        return resubmitted;
+    }
+
+    // Jobs still QUEUED or RUNNING at startup were interrupted by a crash or restart
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<ImportJob> interrupted = importJobRepository.findByStatusIn(
+                List.of(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING));
+        for (ImportJob job : interrupted) {
+            logger.info("Resuming interrupted import job {} after row {}", job.getId(), job.getCheckpointRow());
+            schedule(job.getId());
+        }
+    }
+
+    private void schedule(long jobId) {
+        csvImportJobExecutor.submit(() -> run(jobId));
+    }
+
+    private void run(long jobId) {
+        ImportJob job = importJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            logger.warn("Import job {} no longer exists", jobId);
+            return;
+        }
+        job.setStatus(ImportJob.Status.RUNNING);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(LocalDateTime.now());
+        }
+        importJobRepository.save(job);
+
+        Path storedFile = Paths.get(job.getStoredFile());
+        IngestMetrics metrics = ingestMetricsRegistry.start("job " + jobId);
+        try (InputStream inputStream = Files.newInputStream(storedFile)) {
+            if (job.isBulk()) {
+                // Bulk loads commit all at once, so there is no checkpoint to resume from
+                csvProcessingService.processBulkLoad(inputStream, job.getLayout(), job.isIdempotent(), metrics);
+            } else {
+                csvProcessingService.processImportJob(inputStream, job.getLayout(), job.getCheckpointRow(), job.isIdempotent(),
+                        job.isQuarantine(), metrics, (checkpointRow, rowsCommitted, rowsSkipped, rejected, rowsRead) -> {
+                            for (QuarantinedRow quarantined : rejected) {
+                                quarantined.setImportJobId(jobId);
+                            }
+                            quarantinedRowRepository.saveAll(rejected);
+                            importJobRepository.recordCheckpoint(jobId, checkpointRow, rowsCommitted, rowsSkipped,
+                                    rejected.size(), rowsRead);
+                        });
+            }
+
+            job = importJobRepository.findById(jobId).orElseThrow();
+            if (job.isBulk()) {
+                IngestMetricsDTO totals = metrics.snapshot();
+                job.setRowsRead(totals.getRowsRead());
+                job.setRowsCommitted(totals.getRowsWritten());
+                job.setRowsSkipped(totals.getRowsSkipped());
+            }
+            job.setStatus(ImportJob.Status.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setMetricsSummary(finish(metrics));
+            importJobRepository.save(job);
+            Files.deleteIfExists(storedFile);
+            logger.info("Import job {} completed: {} rows committed, {} rows/s",
+                    jobId, job.getRowsCommitted(), job.getThroughput());
+        } catch (Exception e) {
+            logger.error("Import job " + jobId + " failed: " + e.getMessage(), e);
+            job = importJobRepository.findById(jobId).orElseThrow();
+            job.setStatus(ImportJob.Status.FAILED);
+            if (!job.isQuarantine()) {
+                // The job stops at the first rejected row
+                job.setRowsFailed(1);
+            }
+            job.setErrorMessage(describe(e));
+            job.setFinishedAt(LocalDateTime.now());
+            job.setMetricsSummary(finish(metrics));
+            importJobRepository.save(job);
+        }
+    }
+
+    private String finish(IngestMetrics metrics) {
+        ingestMetricsRegistry.finish(metrics);
+        String summary = metrics.summary();
+        return summary.length() > 2000 ? summary.substring(0, 2000) : summary;
+    }
+
+    private static String describe(Throwable e) {
+        StringBuilder message = new StringBuilder(String.valueOf(e.getMessage()));
+        for (Throwable cause = e.getCause(); cause != null && cause != cause.getCause(); cause = cause.getCause()) {
+            message.append(": ").append(cause.getMessage());
+        }
+        return message.length() > 2000 ? message.substring(0, 2000) : message.toString();
+    }
+}
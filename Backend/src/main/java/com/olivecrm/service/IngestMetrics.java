@@ -0,0 +1,144 @@
+package com.olivecrm.service;
+
+import com.olivecrm.dto.IngestMetricsDTO;
+import org.springframework.dao.DataAccessException;
+
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and stage timings of one CSV import. Updated concurrently by the parse
+// pool and the writer, read by the metrics endpoint and the final summary.
+public class IngestMetrics {
+
+    public enum Stage { PARSE, RESOLVE_CUSTOMER, RESOLVE_PRODUCT, PERSIST }
+
+    private final String importName;
+    private final int sampleEvery;
+    private final long startedNanos = System.nanoTime();
+    private volatile long finishedNanos;
+    private volatile String dateFormat;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder rowsSkipped = new LongAdder();
+    private final LongAdder rowsRejected = new LongAdder();
+    private final Map<Stage, LongAdder> stageNanos = new EnumMap<>(Stage.class);
+    private final Map<String, LongAdder> errorsByCause = new ConcurrentHashMap<>();
+
+    public IngestMetrics(String importName, int sampleEvery) {
+        this.importName = importName;
+        this.sampleEvery = sampleEvery;
+        for (Stage stage : Stage.values()) {
+            stageNanos.put(stage, new LongAdder());
+        }
+    }
+
+    public String getImportName() {
+        return importName;
+    }
+
+    public void setDateFormat(String dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    public void setRowsRead(long rows) {
+        rowsRead.set(rows);
+    }
+
+    public void addRowsWritten(long rows) {
+        rowsWritten.add(rows);
+    }
+
+    public void addRowsSkipped(long rows) {
+        rowsSkipped.add(rows);
+    }
+
+    public void addStageTime(Stage stage, long nanos) {
+        stageNanos.get(stage).add(nanos);
+    }
+
+    public void recordRejected(Throwable error) {
+        recordRejected(error, 1);
+    }
+
+    public void recordRejected(Throwable error, long rows) {
+        rowsRejected.add(rows);
+        errorsByCause.computeIfAbsent(causeOf(error), cause -> new LongAdder()).add(rows);
+    }
+
+    // Rows whose detail is logged at INFO even when DEBUG is off
+    public boolean isSampled(int rowNumber) {
+        return sampleEvery > 0 && rowNumber % sampleEvery == 0;
+    }
+
+    public void finish() {
+        finishedNanos = System.nanoTime();
+    }
+
+    public IngestMetricsDTO snapshot() {
+        long finished = finishedNanos;
+        long elapsedNanos = Math.max(1, (finished != 0 ? finished : System.nanoTime()) - startedNanos);
+
+        IngestMetricsDTO dto = new IngestMetricsDTO();
+        dto.setImportName(importName);
+        dto.setRunning(finished == 0);
+        dto.setDateFormat(dateFormat);
+        dto.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        dto.setRowsRead(rowsRead.get());
+        dto.setRowsWritten(rowsWritten.sum());
+        dto.setRowsSkipped(rowsSkipped.sum());
+        dto.setRowsRejected(rowsRejected.sum());
+        dto.setRowsPerSecond(rowsRead.get() * 1_000_000_000L / elapsedNanos);
+
+        Map<String, Long> stages = new LinkedHashMap<>();
+        for (Map.Entry<Stage, LongAdder> entry : stageNanos.entrySet()) {
+            stages.put(entry.getKey().name(), TimeUnit.NANOSECONDS.toMillis(entry.getValue().sum()));
+        }
+        dto.setStageMillis(stages);
+
+        Map<String, Long> errors = new TreeMap<>();
+        errorsByCause.forEach((cause, count) -> errors.put(cause, count.sum()));
+        dto.setErrorsByCause(errors);
+        return dto;
+    }
+
+    // One-line summary for the log and the import job record
+    public String summary() {
+        IngestMetricsDTO dto = snapshot();
+        return String.format("rows read=%d, written=%d, skipped=%d, rejected=%d, %d rows/s in %d ms; dates %s; stage ms %s; errors %s",
+                dto.getRowsRead(), dto.getRowsWritten(), dto.getRowsSkipped(), dto.getRowsRejected(),
+                dto.getRowsPerSecond(), dto.getElapsedMillis(), dto.getDateFormat(), dto.getStageMillis(),
+                dto.getErrorsByCause());
+    }
+
+    // Groups failures into a few causes that mean something to whoever fixes the file
+    static String causeOf(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            if (root instanceof DataAccessException || root instanceof SQLException) {
+                return "database error";
+            }
+            root = root.getCause();
+        }
+        if (root instanceof NumberFormatException) {
+            return "invalid number";
+        }
+        if (root instanceof ArrayIndexOutOfBoundsException) {
+            return "missing column";
+        }
+        if (root instanceof SQLException || root instanceof DataAccessException) {
+            return "database error";
+        }
+        if (root instanceof IllegalArgumentException && String.valueOf(root.getMessage()).contains("date")) {
+            return "invalid date";
+        }
+        return root.getClass().getSimpleName();
+    }
+}
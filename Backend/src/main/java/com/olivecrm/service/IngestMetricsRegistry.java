@@ -0,0 +1,55 @@
+package com.olivecrm.service;
+
+import com.olivecrm.dto.IngestMetricsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tracks the metrics of running CSV imports and keeps the most recent finished ones
+@Component
+public class IngestMetricsRegistry {
+
+    private static final int RECENT_LIMIT = 20;
+
+    // Log the number of one row in this many at INFO as progress; 0 disables it
+    @Value("${csv.import.log-sample-every:10000}")
+    private int logSampleEvery;
+
+    private final Map<String, IngestMetrics> running = new ConcurrentHashMap<>();
+    private final Deque<IngestMetricsDTO> recent = new ArrayDeque<>();
+
+    public IngestMetrics start(String importName) {
+        IngestMetrics metrics = new IngestMetrics(importName, logSampleEvery);
+        running.put(importName, metrics);
+        return metrics;
+    }
+
+    public void finish(IngestMetrics metrics) {
+        metrics.finish();
+        running.remove(metrics.getImportName(), metrics);
+        synchronized (recent) {
+            recent.addFirst(metrics.snapshot());
+            while (recent.size() > RECENT_LIMIT) {
+                recent.removeLast();
+            }
+        }
+    }
+
+    // Running imports first, then the most recently finished ones
+    public List<IngestMetricsDTO> snapshots() {
+        List<IngestMetricsDTO> snapshots = new ArrayList<>();
+        for (IngestMetrics metrics : running.values()) {
+            snapshots.add(metrics.snapshot());
+        }
+        synchronized (recent) {
+            snapshots.addAll(recent);
+        }
+        return snapshots;
+    }
+}
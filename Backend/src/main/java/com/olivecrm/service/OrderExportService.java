@@ -0,0 +1,70 @@
+package com.olivecrm.service;
+
+import com.olivecrm.repository.OrderExportRepository;
+import com.olivecrm.repository.OrderSpecifications;
+import com.olivecrm.util.CsvWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+// Writes the order CSV export row by row as the database cursor returns it, so memory
+// stays flat whatever the number of orders
+@Service
+public class OrderExportService {
+
+    private static final String HEADER =
+            "Order ID,Customer ID,Product ID,Quantity,Total Cost,Order Method,Sales Date,Sales Type,Shipping Method\n";
+
+    @Autowired
+    private OrderExportRepository orderExportRepository;
+
+    // Exports the orders matching the same filters as the order listing. Returns the number
+    // of orders written.
+    public long writeOrdersCsv(Integer customerId, String salesType, Double totalCost, List<Integer> productIds,
+                               LocalDate singleDate, LocalDate startDate, LocalDate endDate,
+                               OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(HEADER);
+        // Send the header right away rather than when the first buffer fills
+        writer.flush();
+
+        StringBuilder line = new StringBuilder(128);
+        long[] count = new long[1];
+        try {
+            orderExportRepository.forEachRow(OrderSpecifications.conditions(customerId, salesType, totalCost,
+                    productIds, singleDate, startDate, endDate), row -> {
+                // Same fields and "null" for missing values as the former String.format layout
+                line.setLength(0);
+                line.append(row.getId()).append(',')
+                        .append(row.getCustomerId()).append(',')
+                        .append(row.getProductId()).append(',')
+                        .append(row.getQuantity()).append(',');
+                CsvWriter.appendFixed2(line, row.getTotalCost());
+                line.append(',').append(row.getOrderMethod())
+                        .append(',').append(row.getSalesDate())
+                        .append(',').append(row.getSalesType())
+                        .append(',').append(row.getShippingMethod())
+                        .append('\n');
+                try {
+                    writer.append(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count[0];
+    }
+}
@@ -0,0 +1,187 @@
+package com.olivecrm.service;
+
+import com.olivecrm.entity.Order;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+
+// Published by every order write and delivered to SalesTimeSeriesCache and
+// OrderValueDistributionService once the writing transaction commits. Only the columns
+// they keep, and the order ids, are copied out of the orders, so a pending event does not
+// hold on to entities. A transaction publishes one event for all of its orders, built with
+// Builder.
+public class OrderSalesChangedEvent {
+
+    // Day of an order without a sales date
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    private final boolean removal;
+    // Set when the orders written are not known individually (bulk loads, large uploads)
+    private final boolean reload;
+    private final int[] orderIds;
+    private final int[] days;
+    private final int[] productIds;
+    private final int[] quantities;
+    private final double[] costs;
+    private final String[] salesTypes;
+    private final int size;
+
+    private OrderSalesChangedEvent(boolean removal, boolean reload, int[] orderIds, int[] days, int[] productIds,
+                                   int[] quantities, double[] costs, String[] salesTypes, int size) {
+        this.removal = removal;
+        this.reload = reload;
+        this.orderIds = orderIds;
+        this.days = days;
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.costs = costs;
+        this.salesTypes = salesTypes;
+        this.size = size;
+    }
+
+    public static OrderSalesChangedEvent added(Collection<Order> orders) {
+        Builder builder = new Builder(Integer.MAX_VALUE);
+        builder.add(orders);
+        return builder.build();
+    }
+
+    public static OrderSalesChangedEvent removed(Order order) {
+        Builder builder = new Builder(Integer.MAX_VALUE);
+        builder.add(Collections.singletonList(order));
+        return builder.buildRemoval();
+    }
+
+    public static OrderSalesChangedEvent reload() {
+        return new OrderSalesChangedEvent(false, true, null, null, null, null, null, null, 0);
+    }
+
+    // The same change without the given rows
+    public OrderSalesChangedEvent excluding(BitSet rows) {
+        int kept = size - rows.cardinality();
+        int[] keptOrderIds = new int[kept];
+        int[] keptDays = new int[kept];
+        int[] keptProductIds = new int[kept];
+        int[] keptQuantities = new int[kept];
+        double[] keptCosts = new double[kept];
+        String[] keptSalesTypes = new String[kept];
+        int k = 0;
+        for (int i = rows.nextClearBit(0); i < size; i = rows.nextClearBit(i + 1)) {
+            keptOrderIds[k] = orderIds[i];
+            keptDays[k] = days[i];
+            keptProductIds[k] = productIds[i];
+            keptQuantities[k] = quantities[i];
+            keptCosts[k] = costs[i];
+            keptSalesTypes[k] = salesTypes[i];
+            k++;
+        }
+        return new OrderSalesChangedEvent(removal, false, keptOrderIds, keptDays, keptProductIds, keptQuantities,
+                keptCosts, keptSalesTypes, kept);
+    }
+
+    public boolean isRemoval() {
+        return removal;
+    }
+
+    public boolean isReload() {
+        return reload;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getOrderId(int i) {
+        return orderIds[i];
+    }
+
+    public int getDay(int i) {
+        return days[i];
+    }
+
+    public int getProductId(int i) {
+        return productIds[i];
+    }
+
+    public int getQuantity(int i) {
+        return quantities[i];
+    }
+
+    public double getCost(int i) {
+        return costs[i];
+    }
+
+    public String getSalesType(int i) {
+        return salesTypes[i];
+    }
+
+    // Collects the orders written by one transaction, chunk by chunk. Past maxRows it
+    // forgets them and builds a reload event instead, so a large upload neither keeps its
+    // columns until commit nor makes the listeners apply them one by one.
+    public static class Builder {
+        private final int maxRows;
+        private int[] orderIds = new int[16];
+        private int[] days = new int[16];
+        private int[] productIds = new int[16];
+        private int[] quantities = new int[16];
+        private double[] costs = new double[16];
+        private String[] salesTypes = new String[16];
+        private int size;
+        private boolean reload;
+
+        public Builder(int maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        public void add(Collection<Order> orders) {
+            if (reload) {
+                return;
+            }
+            if ((long) size + orders.size() > maxRows) {
+                reload = true;
+                orderIds = null;
+                days = null;
+                productIds = null;
+                quantities = null;
+                costs = null;
+                salesTypes = null;
+                size = 0;
+                return;
+            }
+            if (size + orders.size() > days.length) {
+                int capacity = Math.max(size + orders.size(), days.length + (days.length >> 1));
+                orderIds = Arrays.copyOf(orderIds, capacity);
+                days = Arrays.copyOf(days, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                costs = Arrays.copyOf(costs, capacity);
+                salesTypes = Arrays.copyOf(salesTypes, capacity);
+            }
+            for (Order order : orders) {
+                int i = size++;
+                orderIds[i] = order.getId();
+                days[i] = order.getSalesDate() != null ? (int) order.getSalesDate().toEpochDay() : NO_DAY;
+                productIds[i] = order.getProduct() != null ? order.getProduct().getPID() : 0;
+                quantities[i] = order.getQuantity();
+                costs[i] = order.getTotalCost();
+                salesTypes[i] = order.getSalesType();
+            }
+        }
+
+        // Whether nothing was added, in which case there is nothing to publish
+        public boolean isEmpty() {
+            return !reload && size == 0;
+        }
+
+        public OrderSalesChangedEvent build() {
+            return reload ? reload() : new OrderSalesChangedEvent(false, false, orderIds, days, productIds, quantities, costs,
+                    salesTypes, size);
+        }
+
+        private OrderSalesChangedEvent buildRemoval() {
+            return new OrderSalesChangedEvent(true, false, orderIds, days, productIds, quantities, costs,
+                    salesTypes, size);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.olivecrm.service;
+
+import com.olivecrm.repository.OrderSalesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+// Loads an in-memory copy of ORDERS for SalesTimeSeriesCache and OrderValueDistributionService
+// and keeps it current with OrderSalesChangedEvent. The copy is read in one REPEATABLE READ
+// snapshot, up to the highest order id the snapshot holds. Events delivered meanwhile are
+// held back and replayed onto the copy, except for the changes it already holds: orders
+// above that mark never are, and for those below it the snapshot itself is asked. So writes
+// during a load do not cost another scan; only a reload event starts the load over.
+public class OrderSalesLoader<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSalesLoader.class);
+
+    public interface Scan<T> {
+        // Reads the orders with ids up to maxOrderId; null leaves nothing loaded
+        T read(int maxOrderId);
+    }
+
+    public interface Change<T> {
+        // Returns the copy with the event applied, or null to drop it until the next load
+        T apply(T loaded, OrderSalesChangedEvent event);
+    }
+
+    private final String name;
+    private final OrderSalesRepository orderSalesRepository;
+    private final TransactionTemplate snapshot;
+    private final Scan<T> scan;
+    private final Change<T> change;
+
+    private final Object loadLock = new Object();
+    // Written under this
+    private volatile T loaded;
+    // Events delivered during a load, null when none is running; guarded by this
+    private List<OrderSalesChangedEvent> heldBack;
+    private boolean reloadDuringLoad;
+
+    public OrderSalesLoader(String name, OrderSalesRepository orderSalesRepository,
+                            PlatformTransactionManager transactionManager, Scan<T> scan, Change<T> change) {
+        this.name = name;
+        this.orderSalesRepository = orderSalesRepository;
+        this.snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshot.setReadOnly(true);
+        this.scan = scan;
+        this.change = change;
+    }
+
+    // The loaded copy, or null while there is none
+    public T getIfLoaded() {
+        return loaded;
+    }
+
+    // The loaded copy, loading it first if there is none; one load runs at a time
+    public T get() {
+        T current = loaded;
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            while (true) {
+                synchronized (this) {
+                    if (loaded != null) {
+                        return loaded;
+                    }
+                    heldBack = new ArrayList<>();
+                    reloadDuringLoad = false;
+                }
+                try {
+                    current = snapshot.execute(status -> load());
+                } finally {
+                    synchronized (this) {
+                        heldBack = null;
+                    }
+                }
+                synchronized (this) {
+                    if (!reloadDuringLoad) {
+                        return current;
+                    }
+                }
+                logger.info("Orders were reloaded while loading the {}, starting over", name);
+            }
+        }
+    }
+
+    // Applies the event to the loaded copy, or holds it back for the load running. Returns
+    // whether the copy was dropped by it.
+    public synchronized boolean onOrderSalesChanged(OrderSalesChangedEvent event) {
+        if (heldBack != null) {
+            if (event.isReload()) {
+                reloadDuringLoad = true;
+            } else {
+                heldBack.add(event);
+            }
+            return false;
+        }
+        if (loaded == null) {
+            return false;
+        }
+        loaded = event.isReload() ? null : change.apply(loaded, event);
+        return loaded == null;
+    }
+
+    // Replaces the loaded copy, if there is one, by what update returns for it
+    public synchronized void update(UnaryOperator<T> update) {
+        if (loaded != null) {
+            loaded = update.apply(loaded);
+        }
+    }
+
+    // Runs inside the snapshot transaction
+    private T load() {
+        long start = System.currentTimeMillis();
+        int mark = orderSalesRepository.maxOrderId();
+        T result = scan.read(mark);
+        // Held back orders at or below the mark, and whether the snapshot holds them
+        Map<Integer, Boolean> inSnapshot = new HashMap<>();
+        while (true) {
+            List<Integer> unknown = new ArrayList<>();
+            synchronized (this) {
+                if (reloadDuringLoad) {
+                    return null;
+                }
+                for (OrderSalesChangedEvent event : heldBack) {
+                    for (int i = 0; i < event.size(); i++) {
+                        int orderId = event.getOrderId(i);
+                        if (orderId <= mark && !inSnapshot.containsKey(orderId)) {
+                            unknown.add(orderId);
+                        }
+                    }
+                }
+                if (unknown.isEmpty()) {
+                    int replayed = heldBack.size();
+                    if (result != null) {
+                        result = replay(result, inSnapshot);
+                    }
+                    heldBack = null;
+                    loaded = result;
+                    logger.info("Loaded the {} up to order {} in {} ms, then {} changes made meanwhile", name, mark,
+                            System.currentTimeMillis() - start, replayed);
+                    return result;
+                }
+            }
+            // Asked without holding the monitor, so changes keep being held back meanwhile
+            Set<Integer> existing = orderSalesRepository.findExistingIds(unknown);
+            for (Integer orderId : unknown) {
+                inSnapshot.put(orderId, existing.contains(orderId));
+            }
+        }
+    }
+
+    // An order is added and removed at most once, so its held back events only need the
+    // part the snapshot does not show: the removal if it holds the order, otherwise the
+    // addition unless the order is gone again
+    private T replay(T result, Map<Integer, Boolean> inSnapshot) {
+        Set<Integer> removed = new HashSet<>();
+        for (OrderSalesChangedEvent event : heldBack) {
+            if (event.isRemoval()) {
+                for (int i = 0; i < event.size(); i++) {
+                    removed.add(event.getOrderId(i));
+                }
+            }
+        }
+        for (OrderSalesChangedEvent event : heldBack) {
+            BitSet skipped = new BitSet();
+            for (int i = 0; i < event.size(); i++) {
+                int orderId = event.getOrderId(i);
+                boolean held = inSnapshot.getOrDefault(orderId, false);
+                if (event.isRemoval() ? !held : held || removed.contains(orderId)) {
+                    skipped.set(i);
+                }
+            }
+            OrderSalesChangedEvent rest = skipped.isEmpty() ? event : event.excluding(skipped);
+            if (rest.size() > 0) {
+                result = change.apply(result, rest);
+                if (result == null) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -1,30 +1,47 @@
 package com.olivecrm.service;
 
+import com.olivecrm.dto.CursorPageDTO;
 import com.olivecrm.dto.CustomerSegmentDTO;
+import com.olivecrm.dto.DailySalesDTO;
 import com.olivecrm.dto.OrderCreateDTO;
+import com.olivecrm.dto.OrderRowDTO;
+import com.olivecrm.dto.OrderValueDistributionDTO;
 import com.olivecrm.dto.ProductPurchaseHistoryDTO;
+import com.olivecrm.dto.SalesTimeSeriesPointDTO;
 import com.olivecrm.dto.TopProductDTO;
 import com.olivecrm.entity.Customer;
 import com.olivecrm.entity.Order;
 import com.olivecrm.entity.Product;
 import com.olivecrm.enums.CustomerSegmentType;
+import com.olivecrm.enums.OrderValueGrouping;
+import com.olivecrm.enums.TimeBucket;
 import com.olivecrm.repository.CustomerRepository;
+import com.olivecrm.repository.DailySalesRollupRepository;
 import com.olivecrm.repository.OrderRepository;
+import com.olivecrm.repository.OrderSpecifications;
 import com.olivecrm.repository.ProductRepository;
+import com.olivecrm.util.OrderCursor;
+import com.olivecrm.util.RowFingerprint;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -34,22 +51,40 @@ public class OrderService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private DailySalesRollupRepository dailySalesRollupRepository;
+
+    @Autowired
+    private SalesTimeSeriesCache salesTimeSeriesCache;
+
+    @Autowired
+    private OrderValueDistributionService orderValueDistributionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
     public void deleteOrder(Integer orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with id: " + orderId));
         orderRepository.delete(order);
+        dailySalesRollupRepository.remove(order);
+        eventPublisher.publishEvent(OrderSalesChangedEvent.removed(order));
     }
 
     public static class SalesMetrics {
         private long totalSales;
         private double totalAmount;
         private double averageOrderValue;
-
-        public SalesMetrics(List<Order> orders) {
-            this.totalSales = orders.size();
-            this.totalAmount = orders.stream()
-                    .mapToDouble(Order::getTotalCost)
-                    .sum();
+        // Only known when neither a customer nor dates are given, once the order value
+        // sketches are loaded
+        private Double medianOrderValue;
+        private Double p90OrderValue;
+        private Double p99OrderValue;
+
+        public SalesMetrics(long totalSales, double totalAmount) {
+            this.totalSales = totalSales;
+            this.totalAmount = totalAmount;
             this.averageOrderValue = totalSales > 0 ? totalAmount / totalSales : 0;
         }
 
@@ -64,8 +99,33 @@ public class OrderService {
         public double getAverageOrderValue() {
             return averageOrderValue;
         }
+
+        public Double getMedianOrderValue() {
+            return medianOrderValue;
+        }
+
+        public void setMedianOrderValue(Double medianOrderValue) {
+            this.medianOrderValue = medianOrderValue;
+        }
+
+        public Double getP90OrderValue() {
+            return p90OrderValue;
+        }
+
+        public void setP90OrderValue(Double p90OrderValue) {
+            this.p90OrderValue = p90OrderValue;
+        }
+
+        public Double getP99OrderValue() {
+            return p99OrderValue;
+        }
+
+        public void setP99OrderValue(Double p99OrderValue) {
+            this.p99OrderValue = p99OrderValue;
+        }
     }
 
+    @Transactional
     public Order createOrder(OrderCreateDTO orderDTO) {
         Customer customer;
 
@@ -124,8 +184,12 @@ public class OrderService {
         order.setSalesDate(orderDTO.getSalesDate() != null ? orderDTO.getSalesDate() : LocalDate.now());
         order.setOrderMethod("Online - Website");
         order.setShippingMethod("Standard Delivery");
+        order.setRowFingerprint(RowFingerprint.of(order.getSalesDate(), customer.getCID(),
+                product.getProductName(), product.getProductVariant(), order.getQuantity(), order.getTotalCost()));
 
         Order savedOrder = orderRepository.save(order);
+        dailySalesRollupRepository.add(Collections.singletonList(savedOrder));
+        eventPublisher.publishEvent(OrderSalesChangedEvent.added(Collections.singletonList(savedOrder)));
 
         return savedOrder;
     }
@@ -221,8 +285,86 @@ public class OrderService {
             LocalDate startDate,
             LocalDate endDate,
             Pageable pageable) {
-        return orderRepository.findByFilters(customerId, salesType, totalCost, productIds, singleDate, startDate, endDate,
-                pageable);
+        // Only the supplied filters become predicates, see OrderSpecifications
+        return orderRepository.findAll(OrderSpecifications.byFilters(customerId, salesType, totalCost, productIds,
+                singleDate, startDate, endDate), pageable);
+    }
+
+    // Flat rows for listing and export: one joined query per page instead of loading the
+    // customer and product entities behind every order
+    public Page<OrderRowDTO> getOrderRows(Pageable pageable) {
+        return orderRepository.findRows(null, pageable);
+    }
+
+    public Page<OrderRowDTO> getOrderRowsByFilters(
+            Integer customerId,
+            String salesType,
+            Double totalCost,
+            List<Integer> productIds,
+            LocalDate singleDate,
+            LocalDate startDate,
+            LocalDate endDate,
+            Pageable pageable) {
+        return orderRepository.findRows(OrderSpecifications.byFilters(customerId, salesType, totalCost, productIds,
+                singleDate, startDate, endDate), pageable);
+    }
+
+    public CursorPageDTO<OrderRowDTO> getAllOrders(String cursor, int size, boolean includeTotal) {
+        return seekOrders(null, cursor, size, includeTotal);
+    }
+
+    public CursorPageDTO<OrderRowDTO> getOrdersByFilters(
+            Integer customerId,
+            String salesType,
+            Double totalCost,
+            List<Integer> productIds,
+            LocalDate singleDate,
+            LocalDate startDate,
+            LocalDate endDate,
+            String cursor,
+            int size,
+            boolean includeTotal) {
+        return seekOrders(OrderSpecifications.byFilters(customerId, salesType, totalCost, productIds,
+                singleDate, startDate, endDate), cursor, size, includeTotal);
+    }
+
+    // Keyset pagination over (sales_date DESC, id DESC): one row more than the page is
+    // read to tell whether there is anything beyond it
+    private CursorPageDTO<OrderRowDTO> seekOrders(Specification<Order> spec, String cursor, int size, boolean includeTotal) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        OrderCursor position = cursor != null && !cursor.isEmpty() ? OrderCursor.decode(cursor) : null;
+        boolean backward = position != null && position.isBackward();
+
+        List<OrderRowDTO> orders = new ArrayList<>(orderRepository.findSlice(spec, position, size + 1));
+        boolean more = orders.size() > size;
+        if (more) {
+            orders.remove(size);
+        }
+        if (backward) {
+            // Backward slices come nearest first
+            Collections.reverse(orders);
+        }
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!orders.isEmpty()) {
+            OrderRowDTO first = orders.get(0);
+            OrderRowDTO last = orders.get(orders.size() - 1);
+            if (backward || more) {
+                nextCursor = new OrderCursor(last.getSalesDate(), last.getId(), false).encode();
+            }
+            if (backward ? more : position != null) {
+                prevCursor = new OrderCursor(first.getSalesDate(), first.getId(), true).encode();
+            }
+        }
+        Long totalElements = null;
+        if (includeTotal) {
+            // A null spec would be dispatched to the wrong count overload
+            totalElements = spec != null ? orderRepository.count(spec) : orderRepository.count();
+        }
+        return new CursorPageDTO<>(orders, size, nextCursor, prevCursor, totalElements);
     }
 
     private LocalDate getAnalysisReferenceDate() {
@@ -252,19 +394,93 @@ public class OrderService {
 
     public SalesMetrics getMetrics(Integer customerId, String salesType, List<Integer> productIds, LocalDate startDate,
             LocalDate endDate) {
-        // Get all orders without pagination for metrics calculation
-        Page<Order> filteredOrders = getOrdersByFilters(
-                customerId,
-                salesType,
-                null,
-                productIds,
-                null, // singleDate
-                startDate,
-                endDate,
-                Pageable.unpaged());
-        List<Order> orders = filteredOrders.getContent();
-
-        return new SalesMetrics(orders);
+        SalesMetrics metrics = sumMetrics(customerId, salesType, productIds, startDate, endDate);
+        if (customerId == null && startDate == null && endDate == null) {
+            // The order value sketches have no customer or date dimension. Until they are
+            // loaded in the background the quantiles are left out rather than waited for.
+            List<OrderValueDistributionDTO> distributions = orderValueDistributionService.queryIfLoaded(
+                    salesType, productIds, OrderValueGrouping.NONE, Collections.emptyList());
+            if (distributions != null) {
+                OrderValueDistributionDTO distribution = distributions.get(0);
+                metrics.setMedianOrderValue(distribution.getMedian());
+                metrics.setP90OrderValue(distribution.getP90());
+                metrics.setP99OrderValue(distribution.getP99());
+            }
+        }
+        return metrics;
+    }
+
+    private SalesMetrics sumMetrics(Integer customerId, String salesType, List<Integer> productIds,
+            LocalDate startDate, LocalDate endDate) {
+        if (!canUseDailyRollup(customerId, salesType)) {
+            // Counted and summed by the database over the same filters as the order listing,
+            // so no order is loaded whatever the number of matches
+            Object[] totals = orderRepository.sumTotalCost(OrderSpecifications.byFilters(
+                    customerId, salesType, null, productIds, null, startDate, endDate));
+            return new SalesMetrics(((Number) totals[0]).longValue(), ((Number) totals[1]).doubleValue());
+        }
+
+        Object[] totals = dailySalesRollupRepository.sumTotals(salesType, productIds, startDate, endDate);
+        long totalSales = (Long) totals[0];
+        double totalAmount = (Double) totals[1];
+        if (startDate == null && endDate == null) {
+            // Undated orders are not rolled up but count when no date filter is given;
+            // idx_orders_date_id finds them directly
+            Object[] undated = orderRepository.sumTotalCost(OrderSpecifications.byFilters(
+                    null, salesType, null, productIds, null, null, null).and(OrderSpecifications.undated()));
+            totalSales += ((Number) undated[0]).longValue();
+            totalAmount += ((Number) undated[1]).doubleValue();
+        }
+        return new SalesMetrics(totalSales, totalAmount);
+    }
+
+    // Order count, units and revenue per day, oldest first
+    public List<DailySalesDTO> getDailySales(Integer customerId, String salesType, List<Integer> productIds,
+            LocalDate startDate, LocalDate endDate) {
+        if (canUseDailyRollup(customerId, salesType)) {
+            return dailySalesRollupRepository.sumByDay(salesType, productIds, startDate, endDate);
+        }
+        return orderRepository.sumByDay(OrderSpecifications.byFilters(
+                customerId, salesType, null, productIds, null, startDate, endDate));
+    }
+
+    // Order count, units and revenue per day, week or month. Served from the in-memory
+    // column store; per-customer series, or a store over its size limit, fold the daily
+    // series instead.
+    public List<SalesTimeSeriesPointDTO> getSalesTimeSeries(Integer customerId, String salesType,
+            List<Integer> productIds, LocalDate startDate, LocalDate endDate, TimeBucket bucket) {
+        if (customerId == null) {
+            List<SalesTimeSeriesPointDTO> points = salesTimeSeriesCache.query(salesType, productIds, startDate,
+                    endDate, bucket);
+            if (points != null) {
+                return points;
+            }
+        }
+        List<SalesTimeSeriesPointDTO> points = new ArrayList<>();
+        SalesTimeSeriesPointDTO point = null;
+        for (DailySalesDTO day : getDailySales(customerId, salesType, productIds, startDate, endDate)) {
+            LocalDate bucketStart = LocalDate.ofEpochDay(bucket.start((int) day.getSalesDate().toEpochDay()));
+            if (point == null || !point.getBucketStart().equals(bucketStart)) {
+                point = new SalesTimeSeriesPointDTO(bucketStart, 0, 0, 0);
+                points.add(point);
+            }
+            point.setOrderCount(point.getOrderCount() + day.getOrderCount());
+            point.setUnits(point.getUnits() + day.getUnits());
+            point.setRevenue(point.getRevenue() + day.getRevenue());
+        }
+        return points;
+    }
+
+    // The rollup has no customer dimension and stores a missing sales type as '', so
+    // per-customer and empty sales type filters are answered from ORDERS
+    private static boolean canUseDailyRollup(Integer customerId, String salesType) {
+        return customerId == null && (salesType == null || !salesType.isEmpty());
+    }
+
+    // Recomputes the daily rollup from ORDERS. Returns the number of rollup rows.
+    @Transactional
+    public int rebuildDailyRollup() {
+        return dailySalesRollupRepository.rebuild();
     }
 
     public CustomerSegmentDTO getDormantCustomers() {
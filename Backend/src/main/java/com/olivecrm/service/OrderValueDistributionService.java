@@ -0,0 +1,220 @@
+package com.olivecrm.service;
+
+import com.olivecrm.dto.OrderValueDistributionDTO;
+import com.olivecrm.dto.OrderValueDistributionDTO.HistogramBucket;
+import com.olivecrm.enums.OrderValueGrouping;
+import com.olivecrm.repository.OrderSalesRepository;
+import com.olivecrm.util.QuantileSketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Order value quantiles and histograms from one QuantileSketch per (product, sales type)
+// pair. The sketches are loaded on first use and kept current by OrderSalesChangedEvent
+// after each commit, both through OrderSalesLoader; any grouping or filter is answered by merging the matching sketches,
+// so a query costs the same whatever the number of orders. Dates and customers are not
+// tracked. Loading scans every order, so queryIfLoaded leaves it to a background thread
+// for callers that can do without the distribution meanwhile.
+@Service
+public class OrderValueDistributionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderValueDistributionService.class);
+
+    public static final List<Double> DEFAULT_HISTOGRAM_BOUNDS =
+            Arrays.asList(10.0, 25.0, 50.0, 100.0, 250.0, 500.0, 1000.0, 2500.0, 5000.0, 10000.0);
+
+    @Autowired
+    private OrderSalesRepository orderSalesRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Quantiles are within this fraction of the true order value
+    @Value("${orders.distribution.relative-accuracy:0.01}")
+    private double relativeAccuracy;
+
+    // Product id (0 for none) -> sales type (null included) -> sketch. Changed in place,
+    // so read under the loader's monitor.
+    private OrderSalesLoader<Map<Integer, Map<String, QuantileSketch>>> sketches;
+    // Guarded by this
+    private boolean warming;
+
+    private final ExecutorService warmer = Executors.newSingleThreadExecutor(warmerThreads());
+
+    @PostConstruct
+    public void init() {
+        sketches = new OrderSalesLoader<>("order value sketches", orderSalesRepository, transactionManager,
+                this::readSketches, this::applyChange);
+    }
+
+    // Distribution of the orders matching salesType and productIds (either may be null for
+    // any), split by grouping. The histogram splits at bounds, DEFAULT_HISTOGRAM_BOUNDS when
+    // null. Groups are ordered by product id or sales type; empty groups are left out unless
+    // nothing is grouped.
+    public List<OrderValueDistributionDTO> query(String salesType, List<Integer> productIds,
+                                                 OrderValueGrouping grouping, List<Double> bounds) {
+        return query(sketches.get(), salesType, productIds, grouping, bounds);
+    }
+
+    // Same as query, but returns null instead of waiting for the sketches to load, and starts
+    // loading them in the background
+    public List<OrderValueDistributionDTO> queryIfLoaded(String salesType, List<Integer> productIds,
+                                                         OrderValueGrouping grouping, List<Double> bounds) {
+        Map<Integer, Map<String, QuantileSketch>> current = sketches.getIfLoaded();
+        if (current == null) {
+            warm();
+            return null;
+        }
+        return query(current, salesType, productIds, grouping, bounds);
+    }
+
+    // Loads the sketches on the background thread unless they are loaded or on their way.
+    // A failed load is tried again by the next call.
+    public void warm() {
+        synchronized (this) {
+            if (sketches.getIfLoaded() != null || warming) {
+                return;
+            }
+            warming = true;
+        }
+        warmer.execute(() -> {
+            try {
+                sketches.get();
+            } catch (RuntimeException e) {
+                logger.warn("Loading the order value sketches failed: {}", e.getMessage());
+            } finally {
+                synchronized (this) {
+                    warming = false;
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        warmer.shutdownNow();
+    }
+
+    private List<OrderValueDistributionDTO> query(Map<Integer, Map<String, QuantileSketch>> current, String salesType,
+                                                  List<Integer> productIds, OrderValueGrouping grouping,
+                                                  List<Double> bounds) {
+        Set<Integer> products = productIds != null && !productIds.isEmpty() ? new HashSet<>(productIds) : null;
+        Map<Object, QuantileSketch> groups = new HashMap<>();
+        synchronized (sketches) {
+            for (Map.Entry<Integer, Map<String, QuantileSketch>> product : current.entrySet()) {
+                if (products != null && !products.contains(product.getKey())) {
+                    continue;
+                }
+                for (Map.Entry<String, QuantileSketch> type : product.getValue().entrySet()) {
+                    if ((salesType != null && !salesType.equals(type.getKey())) || type.getValue().count() == 0) {
+                        continue;
+                    }
+                    Object group = grouping == OrderValueGrouping.PRODUCT ? product.getKey()
+                            : grouping == OrderValueGrouping.SALES_TYPE ? type.getKey() : null;
+                    groups.computeIfAbsent(group, key -> new QuantileSketch(relativeAccuracy)).merge(type.getValue());
+                }
+            }
+        }
+
+        List<Double> histogramBounds = new ArrayList<>(new TreeSet<>(bounds != null ? bounds : DEFAULT_HISTOGRAM_BOUNDS));
+        List<OrderValueDistributionDTO> distributions = new ArrayList<>();
+        if (grouping == OrderValueGrouping.NONE) {
+            QuantileSketch all = groups.getOrDefault(null, new QuantileSketch(relativeAccuracy));
+            distributions.add(toDTO(null, salesType, all, histogramBounds));
+            return distributions;
+        }
+        for (Map.Entry<Object, QuantileSketch> group : groups.entrySet()) {
+            if (grouping == OrderValueGrouping.PRODUCT) {
+                distributions.add(toDTO((Integer) group.getKey(), salesType, group.getValue(), histogramBounds));
+            } else {
+                distributions.add(toDTO(null, (String) group.getKey(), group.getValue(), histogramBounds));
+            }
+        }
+        distributions.sort(grouping == OrderValueGrouping.PRODUCT
+                ? Comparator.comparing(OrderValueDistributionDTO::getProductId)
+                : Comparator.comparing(OrderValueDistributionDTO::getSalesType,
+                        Comparator.nullsFirst(Comparator.naturalOrder())));
+        return distributions;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderSalesChanged(OrderSalesChangedEvent event) {
+        if (sketches.onOrderSalesChanged(event)) {
+            // Reloaded ahead of the next metrics request rather than by it
+            warm();
+        }
+    }
+
+    private Map<Integer, Map<String, QuantileSketch>> readSketches(int maxOrderId) {
+        Map<Integer, Map<String, QuantileSketch>> reading = new HashMap<>();
+        orderSalesRepository.forEachOrderValue(maxOrderId, (productId, salesType, totalCost) ->
+                sketch(reading, productId, salesType).add(totalCost));
+        return reading;
+    }
+
+    private Map<Integer, Map<String, QuantileSketch>> applyChange(Map<Integer, Map<String, QuantileSketch>> loaded,
+                                                                  OrderSalesChangedEvent event) {
+        for (int i = 0; i < event.size(); i++) {
+            QuantileSketch sketch = sketch(loaded, event.getProductId(i), event.getSalesType(i));
+            if (!event.isRemoval()) {
+                sketch.add(event.getCost(i));
+            } else if (!sketch.remove(event.getCost(i))) {
+                logger.debug("Deleted order not found in the order value sketches, reloading");
+                return null;
+            }
+        }
+        return loaded;
+    }
+
+    private static CustomizableThreadFactory warmerThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("order-value-sketches-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private QuantileSketch sketch(Map<Integer, Map<String, QuantileSketch>> target, int productId, String salesType) {
+        return target.computeIfAbsent(productId, key -> new HashMap<>())
+                .computeIfAbsent(salesType, key -> new QuantileSketch(relativeAccuracy));
+    }
+
+    private static OrderValueDistributionDTO toDTO(Integer productId, String salesType, QuantileSketch sketch,
+                                                   List<Double> bounds) {
+        List<HistogramBucket> histogram = new ArrayList<>();
+        if (!bounds.isEmpty()) {
+            Double lower = null;
+            long below = 0;
+            for (Double upper : bounds) {
+                long atMost = sketch.countAtMost(upper);
+                histogram.add(new HistogramBucket(lower, upper, atMost - below));
+                lower = upper;
+                below = atMost;
+            }
+            histogram.add(new HistogramBucket(lower, null, sketch.count() - below));
+        }
+        long count = sketch.count();
+        return new OrderValueDistributionDTO(productId, salesType, count,
+                count > 0 ? sketch.quantile(0.5) : null,
+                count > 0 ? sketch.quantile(0.9) : null,
+                count > 0 ? sketch.quantile(0.99) : null,
+                histogram);
+    }
+}
@@ -0,0 +1,57 @@
+package com.olivecrm.service;
+
+import com.olivecrm.entity.Product;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-import lookup of products by (name, variant). The catalog is tiny, so it is
+// loaded once when the import starts instead of being queried for every CSV row.
+public class ProductCache {
+
+    private final EntityManager entityManager;
+    private final Map<String, Product> products = new HashMap<>();
+
+    public ProductCache(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        List<Product> existing = entityManager
+                .createQuery("SELECT p FROM Product p ORDER BY p.pID", Product.class)
+                .getResultList();
+        for (Product product : existing) {
+            products.putIfAbsent(key(product.getProductName(), product.getProductVariant()), product);
+        }
+    }
+
+    // Returns the product for (name, variant), creating it on first sight and only
+    // writing a price update when the CSV price differs from the known one
+    public Product resolve(String productName, String productVariant, double individualPrice) {
+        String key = key(productName, productVariant);
+        Product product = products.get(key);
+        if (product == null) {
+            product = new Product();
+            product.setProductName(productName);
+            product.setProductVariant(productVariant);
+            product.setIndividualPrice(individualPrice);
+            entityManager.persist(product);
+            products.put(key, product);
+        } else if (Double.compare(product.getIndividualPrice(), individualPrice) != 0) {
+            // The cached instance may be detached after a chunk clear, so update by id
+            product.setIndividualPrice(individualPrice);
+            entityManager.createQuery("UPDATE Product p SET p.individualPrice = :price WHERE p.pID = :id")
+                    .setParameter("price", individualPrice)
+                    .setParameter("id", product.getPID())
+                    .executeUpdate();
+        }
+        return product;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    static String key(String productName, String productVariant) {
+        return productName + '\u0000' + productVariant;
+    }
+}
@@ -0,0 +1,193 @@
+package com.olivecrm.service;
+
+import com.olivecrm.dto.SalesTimeSeriesPointDTO;
+import com.olivecrm.enums.TimeBucket;
+import com.olivecrm.repository.OrderSalesRepository;
+import com.olivecrm.util.LayeredSalesColumns;
+import com.olivecrm.util.SalesColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// In-memory copy of the sales columns of every dated order (day, product, quantity, cost,
+// sales type), sorted by day, for bucketed time series without touching MySQL. It is
+// loaded on first use and kept current by OrderSalesChangedEvent after each commit, both
+// through OrderSalesLoader; a bulk load, or a change it cannot apply, drops it to be
+// reloaded on the next request.
+// Changes are appended as layers costing their own size, and folded into the sorted
+// columns by a periodic compaction off the request and commit paths.
+@Service
+public class SalesTimeSeriesCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesTimeSeriesCache.class);
+
+    @Autowired
+    private OrderSalesRepository orderSalesRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${orders.timeseries.cache.enabled:true}")
+    private boolean enabled;
+
+    // About 24 bytes per order; above this the series are computed by the database instead
+    @Value("${orders.timeseries.cache.max-rows:5000000}")
+    private long maxRows;
+
+    // Layers are folded into the base once they hold this fraction of its rows, or this many
+    // changes, whichever comes first
+    @Value("${orders.timeseries.cache.compact-fraction:0.05}")
+    private double compactFraction;
+
+    @Value("${orders.timeseries.cache.compact-layers:64}")
+    private int compactLayers;
+
+    // Sales type dictionary, null included; guarded by itself
+    private final Map<String, Integer> salesTypeCodes = new HashMap<>();
+    private OrderSalesLoader<LayeredSalesColumns> columns;
+    private volatile boolean tooLarge;
+
+    @PostConstruct
+    public void init() {
+        columns = new OrderSalesLoader<>("sales time series", orderSalesRepository, transactionManager,
+                this::readColumns, this::applyChange);
+    }
+
+    // Totals per bucket of the orders dated within [startDate, endDate] (either end may be
+    // open) that match the filters. Returns null when the cache is disabled or too large.
+    public List<SalesTimeSeriesPointDTO> query(String salesType, List<Integer> productIds, LocalDate startDate,
+                                               LocalDate endDate, TimeBucket bucket) {
+        LayeredSalesColumns current = columns();
+        if (current == null) {
+            return null;
+        }
+        List<SalesTimeSeriesPointDTO> points = new ArrayList<>();
+        int salesTypeCode = -1;
+        if (salesType != null) {
+            Integer code = knownCode(salesType);
+            if (code == null) {
+                // No order was ever written with this sales type
+                return points;
+            }
+            salesTypeCode = code;
+        }
+        BitSet products = null;
+        if (productIds != null && !productIds.isEmpty()) {
+            products = new BitSet();
+            for (Integer productId : productIds) {
+                if (productId != null && productId >= 0) {
+                    products.set(productId);
+                }
+            }
+        }
+        current.aggregate(
+                startDate != null ? (int) startDate.toEpochDay() : Integer.MIN_VALUE,
+                endDate != null ? (int) endDate.toEpochDay() : Integer.MAX_VALUE,
+                products, salesTypeCode, bucket,
+                (bucketStart, orderCount, units, revenue) -> points.add(new SalesTimeSeriesPointDTO(
+                        LocalDate.ofEpochDay(bucketStart), orderCount, units, revenue)));
+        return points;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderSalesChanged(OrderSalesChangedEvent event) {
+        columns.onOrderSalesChanged(event);
+    }
+
+    // Folds the layers into new sorted columns when they are due. The copy is made without
+    // holding the loader's monitor; changes applied meanwhile are carried over onto the result.
+    @Scheduled(fixedDelayString = "${orders.timeseries.cache.compact-interval-ms:10000}")
+    public void compact() {
+        LayeredSalesColumns current = columns.getIfLoaded();
+        if (current == null || current.layerRows() == 0) {
+            return;
+        }
+        if (current.layerRows() < current.baseSize() * compactFraction && current.layerCount() < compactLayers) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LayeredSalesColumns compacted = current.compact();
+        columns.update(latest -> {
+            if (!current.isPrefixOf(latest)) {
+                // Reloaded meanwhile
+                return latest;
+            }
+            if (compacted == null) {
+                logger.debug("Deleted order not found in the sales time series, reloading on next use");
+                return null;
+            }
+            return latest.rebase(current, compacted);
+        });
+        logger.debug("Compacted {} changed orders into the sales time series in {} ms", current.layerRows(),
+                System.currentTimeMillis() - start);
+    }
+
+    private LayeredSalesColumns columns() {
+        if (!enabled || tooLarge) {
+            return null;
+        }
+        return columns.get();
+    }
+
+    private LayeredSalesColumns readColumns(int maxOrderId) {
+        // Counted in the loader's snapshot, so exactly the orders scanned
+        long count = orderSalesRepository.countDatedOrders();
+        if (count > maxRows) {
+            logger.warn("{} dated orders exceed the sales time series limit of {}, serving it from the database",
+                    count, maxRows);
+            tooLarge = true;
+            return null;
+        }
+        SalesColumns.Builder builder = new SalesColumns.Builder((int) count);
+        orderSalesRepository.forEachDatedSale(maxOrderId, (day, productId, quantity, totalCost, salesType) ->
+                builder.add(day, productId, quantity, totalCost, code(salesType)));
+        return new LayeredSalesColumns(builder.build());
+    }
+
+    private LayeredSalesColumns applyChange(LayeredSalesColumns current, OrderSalesChangedEvent event) {
+        SalesColumns.Builder rows = new SalesColumns.Builder(event.size());
+        for (int i = 0; i < event.size(); i++) {
+            if (event.getDay(i) == OrderSalesChangedEvent.NO_DAY) {
+                continue;
+            }
+            rows.add(event.getDay(i), event.getProductId(i), event.getQuantity(i), event.getCost(i),
+                    code(event.getSalesType(i)));
+        }
+        LayeredSalesColumns updated = event.isRemoval() ? current.withRemoved(rows.build())
+                : current.withAdded(rows.build());
+        if (updated == null) {
+            logger.debug("Deleted order not found in the sales time series, reloading on next use");
+        } else if (updated.size() > maxRows) {
+            logger.warn("Sales time series passed {} orders, serving it from the database from now on", maxRows);
+            tooLarge = true;
+            return null;
+        }
+        return updated;
+    }
+
+    // Own lock, so queries never wait on a change being applied
+    private int code(String salesType) {
+        synchronized (salesTypeCodes) {
+            return salesTypeCodes.computeIfAbsent(salesType, type -> salesTypeCodes.size());
+        }
+    }
+
+    private Integer knownCode(String salesType) {
+        synchronized (salesTypeCodes) {
+            return salesTypeCodes.get(salesType);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.olivecrm.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Decompresses gzipped and zipped CSV uploads on the fly, so they stream straight into
+// the tokenizer without ever being written out uncompressed. The format is recognised by
+// its magic bytes, not the file name; anything else is passed through as plain CSV.
+public final class CompressedCsvStreams {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CompressedCsvStreams() {
+    }
+
+    public static InputStream decompress(InputStream inputStream) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        buffered.mark(4);
+        int first = buffered.read();
+        int second = buffered.read();
+        int third = buffered.read();
+        int fourth = buffered.read();
+        buffered.reset();
+
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        if (first == 'P' && second == 'K' && third == 3 && fourth == 4) {
+            return new ZipEntriesInputStream(new ZipInputStream(buffered));
+        }
+        return buffered;
+    }
+
+    // Concatenates the .csv entries of a zip bundle, in archive order, into one logical
+    // CSV: the header of the first entry is kept, the headers of the following entries are
+    // dropped, and a line break is added where an entry does not end with one.
+    private static final class ZipEntriesInputStream extends InputStream {
+
+        private final ZipInputStream zip;
+        private boolean inEntry;
+        private boolean firstEntry = true;
+        private boolean pendingNewline;
+        private int lastByte = '\n';
+        // Byte read while skipping a CR-terminated header that belongs to the data
+        private int pushback = -1;
+
+        ZipEntriesInputStream(ZipInputStream zip) {
+            this.zip = zip;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                if (pendingNewline) {
+                    pendingNewline = false;
+                    lastByte = '\n';
+                    buffer[offset] = '\n';
+                    return 1;
+                }
+                if (!inEntry && !nextEntry()) {
+                    return -1;
+                }
+                if (pushback != -1) {
+                    buffer[offset] = (byte) pushback;
+                    lastByte = pushback;
+                    pushback = -1;
+                    return 1;
+                }
+                int n = zip.read(buffer, offset, length);
+                if (n == -1) {
+                    inEntry = false;
+                    pendingNewline = lastByte != '\n' && lastByte != '\r';
+                    continue;
+                }
+                if (n > 0) {
+                    lastByte = buffer[offset + n - 1];
+                    return n;
+                }
+            }
+        }
+
+        private boolean nextEntry() throws IOException {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (!entry.isDirectory() && !name.startsWith("__MACOSX/")
+                        && name.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                    break;
+                }
+            }
+            if (entry == null) {
+                return false;
+            }
+            if (!firstEntry) {
+                skipHeader();
+            }
+            firstEntry = false;
+            inEntry = true;
+            return true;
+        }
+
+        private void skipHeader() throws IOException {
+            int b;
+            while ((b = zip.read()) != -1) {
+                if (b == '\n') {
+                    return;
+                }
+                if (b == '\r') {
+                    int next = zip.read();
+                    if (next != '\n' && next != -1) {
+                        pushback = next;
+                    }
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+}
@@ -2,36 +2,75 @@ package com.olivecrm.util;
 
 import org.springframework.stereotype.Component;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 @Component
 public class CsvReader {
 
+    // Receives a block of consecutive rows; firstRowNumber is the 0-based
+    // record number of rows.get(0) in the file (the header is row 0).
+    // Every call gets a fresh list, so handlers may pass it on to other threads.
+    public interface ChunkHandler {
+        void handle(List<String[]> rows, int firstRowNumber) throws Exception;
+    }
+
     public List<String[]> readCsv(InputStream inputStream) {
         List<String[]> csvData = new ArrayList<>();
 
-        try (Scanner scanner = new Scanner(inputStream)) {
-            while (scanner.hasNextLine()) {
-                csvData.add(scanner.nextLine().split(","));
+        try (CsvTokenizer tokenizer = newTokenizer(inputStream)) {
+            String[] row;
+            while ((row = tokenizer.nextRow()) != null) {
+                csvData.add(row);
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
 
         return csvData;
     }
 
-    public List<String[]> readCsvFromFile(String filePath) {
-        List<String[]> csvData = new ArrayList<>();
+    // Streams the input in blocks of at most chunkSize rows so only one block
+    // is held in memory at a time, whatever the size of the file.
+    // Returns the total number of rows read, including the header.
+    public int readCsvInChunks(InputStream inputStream, int chunkSize, ChunkHandler handler) throws Exception {
+        int rowCount = 0;
 
-        try (Scanner scanner = new Scanner(new File(filePath))) {
-            while (scanner.hasNextLine()) {
-                csvData.add(scanner.nextLine().split(","));
+        try (CsvTokenizer tokenizer = newTokenizer(inputStream)) {
+            List<String[]> chunk = new ArrayList<>(chunkSize);
+            String[] row;
+            while ((row = tokenizer.nextRow()) != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    handler.handle(chunk, rowCount);
+                    rowCount += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                }
             }
+            if (!chunk.isEmpty()) {
+                handler.handle(chunk, rowCount);
+                rowCount += chunk.size();
+            }
+        }
+
+        return rowCount;
+    }
+
+    public List<String[]> readCsvFromFile(String filePath) {
+        try (InputStream inputStream = new FileInputStream(filePath)) {
+            return readCsv(inputStream);
         } catch (FileNotFoundException e) {
             e.printStackTrace();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
 
-        return csvData;
+        return new ArrayList<>();
+    }
+
+    // Gzipped and zipped uploads are decompressed while they are read
+    private static CsvTokenizer newTokenizer(InputStream inputStream) throws IOException {
+        return new CsvTokenizer(new InputStreamReader(CompressedCsvStreams.decompress(inputStream), StandardCharsets.UTF_8));
     }
-}
\ No newline at end of file
+}
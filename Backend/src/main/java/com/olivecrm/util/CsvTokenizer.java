@@ -0,0 +1,178 @@
+package com.olivecrm.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// RFC 4180 record reader working directly on a char buffer. Handles quoted fields,
+// delimiters and line breaks inside quotes, "" escapes, and LF, CR or CRLF line endings.
+// The read buffer, the field builder and the field array are reused across rows, so the
+// only per-row allocations are the field Strings and the returned array.
+// Not thread-safe; one instance reads one stream.
+public class CsvTokenizer implements Closeable {
+
+    private static final int END_OF_ROW = '\n';
+    private static final int END_OF_INPUT = -1;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+
+    private final StringBuilder field = new StringBuilder(64);
+    private String[] fields = new String[16];
+    private int fieldCount;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, ',', 64 * 1024);
+    }
+
+    public CsvTokenizer(Reader reader, char delimiter, int bufferSize) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.buffer = new char[bufferSize];
+    }
+
+    // Returns the fields of the next record, or null once the input is exhausted
+    public String[] nextRow() throws IOException {
+        if (position >= limit && !fill()) {
+            return null;
+        }
+        fieldCount = 0;
+        while (readField() == delimiter) {
+            // keep reading fields until the end of the record
+        }
+        return Arrays.copyOf(fields, fieldCount);
+    }
+
+    private int readField() throws IOException {
+        field.setLength(0);
+        if (position >= limit && !fill()) {
+            // Delimiter right before the end of input: trailing empty field
+            addField("");
+            return END_OF_INPUT;
+        }
+        if (buffer[position] == '"') {
+            position++;
+            return readQuotedField();
+        }
+
+        // Unquoted fast path: scan for the terminator and cut the String straight from the buffer
+        int start = position;
+        while (true) {
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == delimiter || c == '\n' || c == '\r') {
+                    addField(start, position);
+                    position++;
+                    if (c == delimiter) {
+                        return delimiter;
+                    }
+                    if (c == '\r') {
+                        skipLineFeed();
+                    }
+                    return END_OF_ROW;
+                }
+                position++;
+            }
+            // The field continues past the end of the buffer
+            field.append(buffer, start, position - start);
+            if (!fill()) {
+                addField(field.toString());
+                return END_OF_INPUT;
+            }
+            start = position;
+        }
+    }
+
+    private int readQuotedField() throws IOException {
+        while (true) {
+            int start = position;
+            while (position < limit && buffer[position] != '"') {
+                position++;
+            }
+            field.append(buffer, start, position - start);
+            if (position == limit) {
+                if (!fill()) {
+                    // Unterminated quote: keep what was read rather than dropping the row
+                    addField(field.toString());
+                    return END_OF_INPUT;
+                }
+                continue;
+            }
+
+            // Consume the quote and check whether it is an escaped "" pair
+            position++;
+            if (position >= limit && !fill()) {
+                addField(field.toString());
+                return END_OF_INPUT;
+            }
+            if (buffer[position] == '"') {
+                field.append('"');
+                position++;
+                continue;
+            }
+            addField(field.toString());
+            return skipToFieldEnd();
+        }
+    }
+
+    // Skips anything between a closing quote and the next delimiter or line break
+    private int skipToFieldEnd() throws IOException {
+        while (true) {
+            if (position >= limit && !fill()) {
+                return END_OF_INPUT;
+            }
+            char c = buffer[position++];
+            if (c == delimiter) {
+                return delimiter;
+            }
+            if (c == '\n') {
+                return END_OF_ROW;
+            }
+            if (c == '\r') {
+                skipLineFeed();
+                return END_OF_ROW;
+            }
+        }
+    }
+
+    private void skipLineFeed() throws IOException {
+        if ((position < limit || fill()) && buffer[position] == '\n') {
+            position++;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (field.length() == 0) {
+            addField(new String(buffer, start, end - start));
+        } else {
+            field.append(buffer, start, end - start);
+            addField(field.toString());
+        }
+    }
+
+    private void addField(String value) {
+        if (fieldCount == fields.length) {
+            fields = Arrays.copyOf(fields, fieldCount * 2);
+        }
+        fields[fieldCount++] = value;
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
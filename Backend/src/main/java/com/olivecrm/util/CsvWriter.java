@@ -0,0 +1,75 @@
+package com.olivecrm.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Formats CSV lines that CsvTokenizer reads back unchanged (RFC 4180 quoting)
+public final class CsvWriter {
+
+    private CsvWriter() {
+    }
+
+    public static String formatRow(String... fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendField(line, fields[i]);
+        }
+        return line.toString();
+    }
+
+    // Quotes the field only when it holds a delimiter, quote or line break
+    public static void appendField(StringBuilder line, String field) {
+        if (field == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(field);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    // Appends value with two decimals and a '.' separator, rounded half up like
+    // String.format("%.2f") in an English locale, without a Formatter per call
+    public static void appendFixed2(StringBuilder line, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            line.append(value);
+            return;
+        }
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            line.append('-');
+            value = -value;
+        }
+        double scaled = value * 100;
+        double fraction = scaled - Math.floor(scaled);
+        if (scaled >= 1e9 || Math.abs(fraction - 0.5) < 1e-6) {
+            // Large values, or close enough to a tie that the rounding of scaled matters:
+            // round the decimal form of the double exactly
+            line.append(BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).toPlainString());
+            return;
+        }
+        long cents = (long) Math.floor(scaled + 0.5);
+        line.append(cents / 100).append('.');
+        long remainder = cents % 100;
+        if (remainder < 10) {
+            line.append('0');
+        }
+        line.append(remainder);
+    }
+}
@@ -0,0 +1,174 @@
+package com.olivecrm.util;
+
+import com.olivecrm.enums.TimeBucket;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Immutable SalesColumns base plus the changes made since it was built, kept as
+// append-only layers of added and removed rows. Applying a change copies only the change
+// (and the short layer lists), never the base; compact() folds the layers into a new base
+// once they are worth the full copy. Removed rows are subtracted from the totals of their
+// buckets, so which of several equal rows is meant does not matter.
+public final class LayeredSalesColumns {
+
+    private final SalesColumns base;
+    private final List<SalesColumns> added;
+    private final List<SalesColumns> removed;
+    private final int layerRows;
+
+    public LayeredSalesColumns(SalesColumns base) {
+        this(base, Collections.emptyList(), Collections.emptyList(), 0);
+    }
+
+    private LayeredSalesColumns(SalesColumns base, List<SalesColumns> added, List<SalesColumns> removed,
+                                int layerRows) {
+        this.base = base;
+        this.added = added;
+        this.removed = removed;
+        this.layerRows = layerRows;
+    }
+
+    // Number of rows once the removals are applied
+    public long size() {
+        long size = base.size();
+        for (SalesColumns layer : added) {
+            size += layer.size();
+        }
+        for (SalesColumns layer : removed) {
+            size -= layer.size();
+        }
+        return size;
+    }
+
+    public int layerCount() {
+        return added.size() + removed.size();
+    }
+
+    // Rows held in layers rather than in the base
+    public int layerRows() {
+        return layerRows;
+    }
+
+    public int baseSize() {
+        return base.size();
+    }
+
+    public LayeredSalesColumns withAdded(SalesColumns rows) {
+        if (rows.size() == 0) {
+            return this;
+        }
+        return new LayeredSalesColumns(base, append(added, rows), removed, layerRows + rows.size());
+    }
+
+    // Returns null when a removed row is not there, meaning the columns no longer match
+    // the database
+    public LayeredSalesColumns withRemoved(SalesColumns rows) {
+        if (rows.size() == 0) {
+            return this;
+        }
+        LayeredSalesColumns updated = new LayeredSalesColumns(base, added, append(removed, rows),
+                layerRows + rows.size());
+        boolean[] missing = new boolean[1];
+        rows.forEach((day, productId, quantity, cost, salesType) -> {
+            if (updated.count(day, productId, quantity, cost, salesType) < 0) {
+                missing[0] = true;
+            }
+        });
+        return missing[0] ? null : updated;
+    }
+
+    // Same rows with the layers folded into the base. Returns null when a removed row is
+    // missing from the base and added layers.
+    public LayeredSalesColumns compact() {
+        if (layerRows == 0) {
+            return this;
+        }
+        SalesColumns compacted = added.isEmpty() ? base : base.merge(SalesColumns.union(added));
+        if (!removed.isEmpty()) {
+            compacted = compacted.remove(SalesColumns.union(removed));
+        }
+        return compacted != null ? new LayeredSalesColumns(compacted) : null;
+    }
+
+    // Moves the changes made since from was read onto compacted, a compact() of from
+    public LayeredSalesColumns rebase(LayeredSalesColumns from, LayeredSalesColumns compacted) {
+        List<SalesColumns> newAdded = added.subList(from.added.size(), added.size());
+        List<SalesColumns> newRemoved = removed.subList(from.removed.size(), removed.size());
+        int rows = 0;
+        for (SalesColumns layer : newAdded) {
+            rows += layer.size();
+        }
+        for (SalesColumns layer : newRemoved) {
+            rows += layer.size();
+        }
+        return new LayeredSalesColumns(compacted.base, new ArrayList<>(newAdded), new ArrayList<>(newRemoved), rows);
+    }
+
+    // Whether later is this with more layers appended
+    public boolean isPrefixOf(LayeredSalesColumns later) {
+        return later.base == base && later.added.size() >= added.size() && later.removed.size() >= removed.size()
+                && later.added.subList(0, added.size()).equals(added)
+                && later.removed.subList(0, removed.size()).equals(removed);
+    }
+
+    // Same contract as SalesColumns.aggregate
+    public void aggregate(int startDay, int endDay, BitSet products, int salesType, TimeBucket bucket,
+                          SalesColumns.BucketConsumer consumer) {
+        if (layerRows == 0) {
+            base.aggregate(startDay, endDay, products, salesType, bucket, consumer);
+            return;
+        }
+        Map<Integer, BucketTotals> totals = new TreeMap<>();
+        base.aggregate(startDay, endDay, products, salesType, bucket, add(totals, 1));
+        for (SalesColumns layer : added) {
+            layer.aggregate(startDay, endDay, products, salesType, bucket, add(totals, 1));
+        }
+        for (SalesColumns layer : removed) {
+            layer.aggregate(startDay, endDay, products, salesType, bucket, add(totals, -1));
+        }
+        for (Map.Entry<Integer, BucketTotals> entry : totals.entrySet()) {
+            BucketTotals bucketTotals = entry.getValue();
+            if (bucketTotals.orderCount > 0) {
+                consumer.accept(entry.getKey(), bucketTotals.orderCount, bucketTotals.units, bucketTotals.revenue);
+            }
+        }
+    }
+
+    private int count(int day, int productId, int quantity, double cost, int salesType) {
+        int count = base.count(day, productId, quantity, cost, salesType);
+        for (SalesColumns layer : added) {
+            count += layer.count(day, productId, quantity, cost, salesType);
+        }
+        for (SalesColumns layer : removed) {
+            count -= layer.count(day, productId, quantity, cost, salesType);
+        }
+        return count;
+    }
+
+    private static SalesColumns.BucketConsumer add(Map<Integer, BucketTotals> totals, int sign) {
+        return (bucketStart, orderCount, units, revenue) -> {
+            BucketTotals bucketTotals = totals.computeIfAbsent(bucketStart, key -> new BucketTotals());
+            bucketTotals.orderCount += sign * orderCount;
+            bucketTotals.units += sign * units;
+            bucketTotals.revenue += sign * revenue;
+        };
+    }
+
+    private static List<SalesColumns> append(List<SalesColumns> layers, SalesColumns layer) {
+        List<SalesColumns> appended = new ArrayList<>(layers.size() + 1);
+        appended.addAll(layers);
+        appended.add(layer);
+        return appended;
+    }
+
+    private static final class BucketTotals {
+        long orderCount;
+        long units;
+        double revenue;
+    }
+}
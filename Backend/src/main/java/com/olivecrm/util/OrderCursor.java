@@ -0,0 +1,51 @@
+package com.olivecrm.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+// Position in the order listing, which is sorted by (sales_date DESC, id DESC).
+// Encoded as an opaque URL-safe string; backward cursors page towards newer orders.
+public final class OrderCursor {
+
+    private final LocalDate salesDate;
+    private final int id;
+    private final boolean backward;
+
+    public OrderCursor(LocalDate salesDate, int id, boolean backward) {
+        this.salesDate = salesDate;
+        this.id = id;
+        this.backward = backward;
+    }
+
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isBackward() {
+        return backward;
+    }
+
+    public String encode() {
+        String raw = (backward ? "b" : "f") + ":" + (salesDate == null ? "-" : Long.toString(salesDate.toEpochDay())) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || !(parts[0].equals("f") || parts[0].equals("b"))) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            LocalDate salesDate = parts[1].equals("-") ? null : LocalDate.ofEpochDay(Long.parseLong(parts[1]));
+            return new OrderCursor(salesDate, Integer.parseInt(parts[2]), parts[0].equals("b"));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.olivecrm.util;
+
+import java.util.Arrays;
+
+// Mergeable quantile sketch with relative error guarantees (the DDSketch scheme). Values
+// are counted in logarithmic buckets (gamma^(i-1), gamma^i] with gamma = (1 + a) / (1 - a),
+// so any quantile is returned within a relative error a of the true value, whatever the
+// number of values. Memory grows with the log of the value range, not the value count;
+// adding, removing, merging and querying never sort anything.
+public final class QuantileSketch {
+
+    // Values this close to zero share the zero bucket
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeroCount;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        if (value > MIN_INDEXABLE_VALUE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+    }
+
+    // Takes one value back out. Returns false, leaving the sketch unchanged, when the
+    // value's bucket is empty, i.e. the value was never added.
+    public boolean remove(double value) {
+        if (value > MIN_INDEXABLE_VALUE) {
+            return positive.remove(index(value));
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            return negative.remove(index(-value));
+        } else if (zeroCount > 0) {
+            zeroCount--;
+            return true;
+        }
+        return false;
+    }
+
+    // Adds all values of other, which must use the same relative accuracy
+    public void merge(QuantileSketch other) {
+        if (Double.compare(other.relativeAccuracy, relativeAccuracy) != 0) {
+            throw new IllegalArgumentException("Cannot merge sketches of different accuracy");
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    public long count() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    // Value at quantile q in [0, 1], or NaN for an empty sketch
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        long count = count();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        long seen = 0;
+        // Ascending values: negatives by decreasing magnitude, zero, then positives
+        for (int i = negative.maxIndex(); i >= negative.offset; i--) {
+            seen += negative.get(i);
+            if (seen > rank) {
+                return -value(i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = positive.offset; i <= positive.maxIndex(); i++) {
+            seen += positive.get(i);
+            if (seen > rank) {
+                return value(i);
+            }
+        }
+        return value(positive.maxIndex());
+    }
+
+    // Number of values at or below x, to within the sketch's relative accuracy
+    public long countAtMost(double x) {
+        long seen = 0;
+        for (int i = negative.maxIndex(); i >= negative.offset; i--) {
+            if (-value(i) > x) {
+                break;
+            }
+            seen += negative.get(i);
+        }
+        if (x >= 0) {
+            seen += zeroCount;
+        }
+        for (int i = positive.offset; i <= positive.maxIndex(); i++) {
+            if (value(i) > x) {
+                break;
+            }
+            seen += positive.get(i);
+        }
+        return seen;
+    }
+
+    private int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    // Representative of bucket i, within the relative accuracy of every value in it
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    // Dense counts for the contiguous bucket indexes seen so far
+    private static final class Buckets {
+        private long[] counts = new long[0];
+        private int offset;
+        private long total;
+
+        long get(int index) {
+            int slot = index - offset;
+            return slot >= 0 && slot < counts.length ? counts[slot] : 0;
+        }
+
+        int maxIndex() {
+            return offset + counts.length - 1;
+        }
+
+        void add(int index, long count) {
+            ensureCovers(index);
+            counts[index - offset] += count;
+            total += count;
+        }
+
+        boolean remove(int index) {
+            int slot = index - offset;
+            if (slot < 0 || slot >= counts.length || counts[slot] == 0) {
+                return false;
+            }
+            counts[slot]--;
+            total--;
+            return true;
+        }
+
+        void merge(Buckets other) {
+            if (other.total == 0) {
+                return;
+            }
+            ensureCovers(other.offset);
+            ensureCovers(other.maxIndex());
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+            total += other.total;
+        }
+
+        private void ensureCovers(int index) {
+            if (counts.length == 0) {
+                counts = new long[8];
+                offset = index - 4;
+                return;
+            }
+            if (index < offset) {
+                int grow = Math.max(offset - index, counts.length / 2);
+                long[] grown = new long[counts.length + grow];
+                System.arraycopy(counts, 0, grown, grow, counts.length);
+                counts = grown;
+                offset -= grow;
+            } else if (index > maxIndex()) {
+                counts = Arrays.copyOf(counts, counts.length + Math.max(index - maxIndex(), counts.length / 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.olivecrm.util;
+
+import java.time.LocalDate;
+
+// 64-bit content hash of a sale, used to recognise rows that were already ingested.
+// The inputs are all stored on the order (total cost = price * quantity), so the same
+// fingerprint can be recomputed later for orders that predate the column.
+public final class RowFingerprint {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER = 0xBF58476D1CE4E5B9L;
+
+    private RowFingerprint() {
+    }
+
+    public static long of(LocalDate salesDate, int customerId, String productName, String productVariant,
+                          int quantity, double totalCost) {
+        long hash = SEED;
+        hash = combine(hash, salesDate == null ? Long.MIN_VALUE : salesDate.toEpochDay());
+        hash = combine(hash, customerId);
+        hash = combine(hash, productName);
+        hash = combine(hash, productVariant);
+        hash = combine(hash, quantity);
+        hash = combine(hash, Double.doubleToLongBits(totalCost));
+        return finish(hash);
+    }
+
+    private static long combine(long hash, long value) {
+        return (hash ^ finish(value)) * MULTIPLIER + SEED;
+    }
+
+    private static long combine(long hash, String value) {
+        if (value == null) {
+            return combine(hash, 0L);
+        }
+        // FNV-1a over the chars, then mixed in like any other component
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return combine(hash, h ^ value.length());
+    }
+
+    // SplitMix64 finaliser
+    private static long finish(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,132 @@
+package com.olivecrm.util;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.List;
+
+// Parses CSV sale dates without building formatters or throwing per attempt.
+// ISO dates are unambiguous and always accepted; whether slash dates are dd/MM/yyyy or
+// MM/dd/yyyy is decided once per file from a sample of its rows, so every row of the
+// file is read the same way instead of silently falling through to the other order.
+public class SaleDateParser {
+
+    public enum Format {
+        DAY_FIRST("dd/MM/yyyy"),
+        MONTH_FIRST("MM/dd/yyyy");
+
+        private final String pattern;
+
+        Format(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+    }
+
+    private final Format slashFormat;
+    private final boolean ambiguous;
+
+    public SaleDateParser(Format slashFormat, boolean ambiguous) {
+        this.slashFormat = slashFormat;
+        this.ambiguous = ambiguous;
+    }
+
+    // Inspects sample dates: a first part above 12 proves dd/MM, a second part above 12
+    // proves MM/dd. Samples proving both orders are rejected up front. Samples proving
+    // neither fall back to dd/MM/yyyy (the historical first choice) and are flagged ambiguous.
+    public static SaleDateParser detect(List<String> samples) {
+        String dayFirstExample = null;
+        String monthFirstExample = null;
+        for (String sample : samples) {
+            String text = sample == null ? "" : sample.trim();
+            if (!isSlashDate(text)) {
+                continue;
+            }
+            int first = digits(text, 0, 2);
+            int second = digits(text, 3, 2);
+            if (first > 12 && second >= 1 && second <= 12 && dayFirstExample == null) {
+                dayFirstExample = text;
+            } else if (second > 12 && first >= 1 && first <= 12 && monthFirstExample == null) {
+                monthFirstExample = text;
+            }
+        }
+
+        if (dayFirstExample != null && monthFirstExample != null) {
+            throw new IllegalArgumentException("Inconsistent sale date format: '" + dayFirstExample
+                    + "' is dd/MM/yyyy but '" + monthFirstExample + "' is MM/dd/yyyy");
+        }
+        if (monthFirstExample != null) {
+            return new SaleDateParser(Format.MONTH_FIRST, false);
+        }
+        return new SaleDateParser(Format.DAY_FIRST, dayFirstExample == null);
+    }
+
+    public Format getSlashFormat() {
+        return slashFormat;
+    }
+
+    // True when the sample could not tell dd/MM from MM/dd and dd/MM was assumed
+    public boolean isAmbiguous() {
+        return ambiguous;
+    }
+
+    public LocalDate parse(String saleDate) {
+        LocalDate date = tryParse(saleDate);
+        if (date == null) {
+            throw new IllegalArgumentException("Unable to parse date: " + saleDate
+                    + " (expected " + slashFormat.getPattern() + " or yyyy-MM-dd)");
+        }
+        return date;
+    }
+
+    // Returns null instead of throwing when the text is not a valid date in this file's format
+    public LocalDate tryParse(String saleDate) {
+        if (saleDate == null) {
+            return null;
+        }
+        String text = saleDate.trim();
+        if (text.length() != 10) {
+            return null;
+        }
+        if (text.charAt(4) == '-' && text.charAt(7) == '-') {
+            return toDate(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2));
+        }
+        if (isSlashDate(text)) {
+            int first = digits(text, 0, 2);
+            int second = digits(text, 3, 2);
+            int year = digits(text, 6, 4);
+            return slashFormat == Format.DAY_FIRST ? toDate(year, second, first) : toDate(year, first, second);
+        }
+        return null;
+    }
+
+    private static boolean isSlashDate(String text) {
+        return text.length() == 10 && text.charAt(2) == '/' && text.charAt(5) == '/';
+    }
+
+    // Parses a fixed-width run of ASCII digits, or returns -1
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static LocalDate toDate(int year, int month, int day) {
+        if (year < 0 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        if (day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+}
@@ -0,0 +1,260 @@
+package com.olivecrm.util;
+
+import com.olivecrm.enums.TimeBucket;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Immutable column store of dated sales: one primitive array per attribute, all sorted by
+// sales day. A date range is located with two binary searches and aggregated in one pass
+// over contiguous arrays, with no objects per row. Sales types are dictionary codes held
+// by the caller; changes produce new instances, so readers never need a lock.
+public final class SalesColumns {
+
+    public static final SalesColumns EMPTY = new Builder(0).build();
+
+    // Receives the totals of one non-empty bucket, in ascending bucket order
+    public interface BucketConsumer {
+        void accept(int bucketStart, long orderCount, long units, double revenue);
+    }
+
+    public interface RowConsumer {
+        void accept(int day, int productId, int quantity, double cost, int salesType);
+    }
+
+    private final int[] days;
+    private final int[] productIds;
+    private final int[] quantities;
+    private final double[] costs;
+    private final int[] salesTypes;
+    private final int size;
+
+    private SalesColumns(int[] days, int[] productIds, int[] quantities, double[] costs, int[] salesTypes, int size) {
+        this.days = days;
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.costs = costs;
+        this.salesTypes = salesTypes;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Sums the rows with startDay <= day <= endDay into buckets. products (by id) and
+    // salesType (a code, or -1 for any) restrict the rows when given.
+    public void aggregate(int startDay, int endDay, BitSet products, int salesType, TimeBucket bucket,
+                          BucketConsumer consumer) {
+        int from = lowerBound(days, size, startDay);
+        int to = endDay == Integer.MAX_VALUE ? size : lowerBound(days, size, endDay + 1);
+
+        int bucketStart = 0;
+        int bucketEnd = Integer.MIN_VALUE;
+        long orderCount = 0;
+        long units = 0;
+        double revenue = 0;
+        for (int i = from; i < to; i++) {
+            if (products != null && !products.get(productIds[i])) {
+                continue;
+            }
+            if (salesType >= 0 && salesTypes[i] != salesType) {
+                continue;
+            }
+            int day = days[i];
+            if (day >= bucketEnd) {
+                if (orderCount > 0) {
+                    consumer.accept(bucketStart, orderCount, units, revenue);
+                }
+                bucketStart = bucket.start(day);
+                bucketEnd = bucket.next(bucketStart);
+                orderCount = 0;
+                units = 0;
+                revenue = 0;
+            }
+            orderCount++;
+            units += quantities[i];
+            revenue += costs[i];
+        }
+        if (orderCount > 0) {
+            consumer.accept(bucketStart, orderCount, units, revenue);
+        }
+    }
+
+    public void forEach(RowConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(days[i], productIds[i], quantities[i], costs[i], salesTypes[i]);
+        }
+    }
+
+    // Number of rows equal to the given one; only the rows of its day are compared
+    public int count(int day, int productId, int quantity, double cost, int salesType) {
+        int count = 0;
+        for (int i = lowerBound(days, size, day); i < size && days[i] == day; i++) {
+            if (productIds[i] == productId && quantities[i] == quantity && Double.compare(costs[i], cost) == 0
+                    && salesTypes[i] == salesType) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // All rows of parts in one instance, sorted by day
+    public static SalesColumns union(List<SalesColumns> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int total = 0;
+        for (SalesColumns part : parts) {
+            total += part.size;
+        }
+        Builder union = new Builder(total);
+        for (SalesColumns part : parts) {
+            for (int i = 0; i < part.size; i++) {
+                union.add(part.days[i], part.productIds[i], part.quantities[i], part.costs[i], part.salesTypes[i]);
+            }
+        }
+        return union.build();
+    }
+
+    // Returns a copy with the rows of added merged in by day
+    public SalesColumns merge(SalesColumns added) {
+        if (added.size == 0) {
+            return this;
+        }
+        Builder merged = new Builder(size + added.size);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < added.size) {
+            if (j == added.size || (i < size && days[i] <= added.days[j])) {
+                merged.add(days[i], productIds[i], quantities[i], costs[i], salesTypes[i]);
+                i++;
+            } else {
+                merged.add(added.days[j], added.productIds[j], added.quantities[j], added.costs[j], added.salesTypes[j]);
+                j++;
+            }
+        }
+        return merged.build();
+    }
+
+    // Returns a copy without one equal row for each row of removed. Equal rows add up to
+    // the same totals, so it does not matter which one goes. Returns null when a row is
+    // missing, meaning the columns no longer match the database.
+    public SalesColumns remove(SalesColumns removed) {
+        if (removed.size == 0) {
+            return this;
+        }
+        boolean[] dropped = new boolean[size];
+        for (int r = 0; r < removed.size; r++) {
+            int found = -1;
+            for (int i = lowerBound(days, size, removed.days[r]); i < size && days[i] == removed.days[r]; i++) {
+                if (!dropped[i] && productIds[i] == removed.productIds[r] && quantities[i] == removed.quantities[r]
+                        && Double.compare(costs[i], removed.costs[r]) == 0 && salesTypes[i] == removed.salesTypes[r]) {
+                    found = i;
+                    break;
+                }
+            }
+            if (found < 0) {
+                return null;
+            }
+            dropped[found] = true;
+        }
+        Builder kept = new Builder(size - removed.size);
+        for (int i = 0; i < size; i++) {
+            if (!dropped[i]) {
+                kept.add(days[i], productIds[i], quantities[i], costs[i], salesTypes[i]);
+            }
+        }
+        return kept.build();
+    }
+
+    // First index whose day is >= day
+    private static int lowerBound(int[] days, int size, int day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Collects rows in any order; build() sorts them by day, keeping the order of equal days
+    public static final class Builder {
+        private int[] days;
+        private int[] productIds;
+        private int[] quantities;
+        private double[] costs;
+        private int[] salesTypes;
+        private int size;
+        private boolean sorted = true;
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            days = new int[capacity];
+            productIds = new int[capacity];
+            quantities = new int[capacity];
+            costs = new double[capacity];
+            salesTypes = new int[capacity];
+        }
+
+        public void add(int day, int productId, int quantity, double cost, int salesType) {
+            if (size == days.length) {
+                grow();
+            }
+            if (size > 0 && day < days[size - 1]) {
+                sorted = false;
+            }
+            days[size] = day;
+            productIds[size] = productId;
+            quantities[size] = quantity;
+            costs[size] = cost;
+            salesTypes[size] = salesType;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public SalesColumns build() {
+            if (sorted) {
+                return new SalesColumns(days, productIds, quantities, costs, salesTypes, size);
+            }
+            // Day in the high half, position in the low half: one primitive sort, and stable
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = ((long) days[i] << 32) | i;
+            }
+            Arrays.sort(order);
+            int[] sortedDays = new int[size];
+            int[] sortedProductIds = new int[size];
+            int[] sortedQuantities = new int[size];
+            double[] sortedCosts = new double[size];
+            int[] sortedSalesTypes = new int[size];
+            for (int i = 0; i < size; i++) {
+                int from = (int) order[i];
+                sortedDays[i] = days[from];
+                sortedProductIds[i] = productIds[from];
+                sortedQuantities[i] = quantities[from];
+                sortedCosts[i] = costs[from];
+                sortedSalesTypes[i] = salesTypes[from];
+            }
+            return new SalesColumns(sortedDays, sortedProductIds, sortedQuantities, sortedCosts, sortedSalesTypes, size);
+        }
+
+        private void grow() {
+            int capacity = days.length + (days.length >> 1);
+            days = Arrays.copyOf(days, capacity);
+            productIds = Arrays.copyOf(productIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            salesTypes = Arrays.copyOf(salesTypes, capacity);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package db.migration;
+
+import com.olivecrm.util.RowFingerprint;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Computes ORDERS.row_fingerprint for orders stored before the column existed, once per
+// database. Every write path sets the fingerprint since, so imports never backfill.
+// Runs outside a migration transaction and commits each page, so the table is never
+// rewritten in one long transaction.
+public class V6__Backfill_order_fingerprints extends BaseJavaMigration {
+
+    private static final int PAGE_SIZE = 5000;
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            addColumnIfMissing(connection);
+            int lastId = 0;
+            List<long[]> page;
+            while (!(page = readPage(connection, lastId)).isEmpty()) {
+                try (PreparedStatement update = connection.prepareStatement(
+                        "UPDATE orders SET row_fingerprint = ? WHERE id = ?")) {
+                    for (long[] row : page) {
+                        update.setLong(1, row[1]);
+                        update.setLong(2, row[0]);
+                        update.addBatch();
+                    }
+                    update.executeBatch();
+                }
+                connection.commit();
+                lastId = (int) page.get(page.size() - 1)[0];
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Databases baselined at V1 got their ORDERS table from ddl-auto, which only adds the
+    // column after migrations have run
+    private static void addColumnIfMissing(Connection connection) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(
+                connection.getCatalog(), null, "orders", "row_fingerprint")) {
+            if (columns.next()) {
+                return;
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE orders ADD COLUMN row_fingerprint BIGINT");
+            statement.execute("CREATE INDEX idx_orders_row_fingerprint ON orders (row_fingerprint)");
+        }
+        connection.commit();
+    }
+
+    // Returns {id, fingerprint} for the next page of orders without a fingerprint
+    private static List<long[]> readPage(Connection connection, int lastId) throws SQLException {
+        List<long[]> page = new ArrayList<>(PAGE_SIZE);
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT o.id, o.sales_date, o.customer_id, p.product_name, p.product_variant, o.quantity, o.total_cost " +
+                "FROM orders o LEFT JOIN product p ON p.p_id = o.product_id " +
+                "WHERE o.row_fingerprint IS NULL AND o.id > ? ORDER BY o.id LIMIT " + PAGE_SIZE)) {
+            select.setInt(1, lastId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    Date salesDate = resultSet.getDate(2);
+                    long fingerprint = RowFingerprint.of(
+                            salesDate != null ? salesDate.toLocalDate() : null,
+                            resultSet.getInt(3),
+                            resultSet.getString(4),
+                            resultSet.getString(5),
+                            resultSet.getInt(6),
+                            resultSet.getDouble(7));
+                    page.add(new long[] {resultSet.getInt(1), fingerprint});
+                }
+            }
+        }
+        return page;
+    }
+}
@@ -0,0 +1,93 @@
+-- Schema as generated by Hibernate before migrations were introduced.
+-- Existing databases are baselined at version 1 and skip this script;
+-- it only runs against an empty schema.
+
+CREATE TABLE IF NOT EXISTS customer (
+    c_id INTEGER NOT NULL,
+    zipcode VARCHAR(255),
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    PRIMARY KEY (c_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS product (
+    p_id INTEGER NOT NULL AUTO_INCREMENT,
+    product_name VARCHAR(255),
+    product_variant VARCHAR(255),
+    individual_price DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (p_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS orders (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    customer_id INTEGER,
+    product_id INTEGER,
+    quantity INTEGER NOT NULL,
+    total_cost DOUBLE PRECISION NOT NULL,
+    order_method VARCHAR(255),
+    sales_date DATE,
+    sales_type VARCHAR(255),
+    shipping_method VARCHAR(255),
+    row_fingerprint BIGINT,
+    PRIMARY KEY (id),
+    INDEX idx_orders_row_fingerprint (row_fingerprint),
+    CONSTRAINT fk_orders_customer FOREIGN KEY (customer_id) REFERENCES customer (c_id),
+    CONSTRAINT fk_orders_product FOREIGN KEY (product_id) REFERENCES product (p_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS employees (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    last_login DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_employees_username UNIQUE (username)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS newsletter (
+    news_id INTEGER NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    target VARCHAR(255) NOT NULL,
+    content TEXT NOT NULL,
+    id BIGINT NOT NULL,
+    PRIMARY KEY (news_id),
+    CONSTRAINT uk_newsletter_title UNIQUE (title),
+    CONSTRAINT fk_newsletter_employee FOREIGN KEY (id) REFERENCES employees (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS import_job (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    file_name VARCHAR(255),
+    layout VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    stored_file VARCHAR(255),
+    rows_read BIGINT NOT NULL,
+    rows_committed BIGINT NOT NULL,
+    rows_failed BIGINT NOT NULL,
+    rows_skipped BIGINT NOT NULL,
+    idempotent BIT NOT NULL,
+    bulk BIT NOT NULL,
+    quarantine BIT NOT NULL,
+    checkpoint_row INTEGER NOT NULL,
+    error_message VARCHAR(2000),
+    metrics_summary VARCHAR(2000),
+    created_at DATETIME(6),
+    started_at DATETIME(6),
+    finished_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS quarantined_row (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    import_job_id BIGINT NOT NULL,
+    source_row INTEGER,
+    reason VARCHAR(1000),
+    raw_row LONGTEXT,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_quarantined_row_job (import_job_id, source_row)
+) ENGINE = InnoDB;
@@ -0,0 +1,15 @@
+-- Composite indexes for the ORDERS access paths.
+
+-- findAllByCustomer_cID and the customer filter, optionally with a date range, plus the
+-- recency, frequency and monetary queries that GROUP BY customer and read sales_date and
+-- total_cost: all of them are answered from this index without touching the rows
+CREATE INDEX idx_orders_customer_date ON orders (customer_id, sales_date, total_cost);
+
+-- Date range filters, and the active customers query that lists customers within a range
+CREATE INDEX idx_orders_date_customer ON orders (sales_date, customer_id);
+
+-- Product filter, optionally with a date range
+CREATE INDEX idx_orders_product_date ON orders (product_id, sales_date);
+
+-- Sales type filter, optionally with a date range
+CREATE INDEX idx_orders_type_date ON orders (sales_type, sales_date);
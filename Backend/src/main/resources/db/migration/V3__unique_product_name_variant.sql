@@ -0,0 +1,23 @@
+-- Products are identified by (product_name, product_variant). Earlier imports could create
+-- the same product twice, so point orders at the oldest copy and drop the others before
+-- the unique index is added.
+
+UPDATE orders o
+    JOIN product p ON p.p_id = o.product_id
+    JOIN (SELECT product_name, product_variant, MIN(p_id) AS keep_id
+          FROM product
+          GROUP BY product_name, product_variant
+          HAVING COUNT(*) > 1) d
+        ON d.product_name <=> p.product_name AND d.product_variant <=> p.product_variant
+SET o.product_id = d.keep_id
+WHERE p.p_id <> d.keep_id;
+
+DELETE p FROM product p
+    JOIN (SELECT product_name, product_variant, MIN(p_id) AS keep_id
+          FROM product
+          GROUP BY product_name, product_variant
+          HAVING COUNT(*) > 1) d
+        ON d.product_name <=> p.product_name AND d.product_variant <=> p.product_variant
+WHERE p.p_id <> d.keep_id;
+
+CREATE UNIQUE INDEX uk_product_name_variant ON product (product_name, product_variant);
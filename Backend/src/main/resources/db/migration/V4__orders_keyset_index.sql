@@ -0,0 +1,2 @@
+-- Keyset pagination reads ORDERS in (sales_date, id) order starting from a cursor
+CREATE INDEX idx_orders_date_id ON orders (sales_date, id);
@@ -0,0 +1,21 @@
+-- Daily sales per product and sales type, kept up to date by every order write (see
+-- DailySalesRollupRepository) so the sales metrics do not have to scan ORDERS.
+-- Key columns cannot be NULL: a missing product is stored as product_id 0 and a missing
+-- sales type as ''. Orders without a sales date are not rolled up.
+CREATE TABLE daily_sales_rollup (
+    sales_date DATE NOT NULL,
+    product_id INT NOT NULL,
+    sales_type VARCHAR(255) NOT NULL,
+    order_count BIGINT NOT NULL,
+    units BIGINT NOT NULL,
+    revenue DOUBLE NOT NULL,
+    PRIMARY KEY (sales_date, product_id, sales_type),
+    INDEX idx_rollup_product_date (product_id, sales_date),
+    INDEX idx_rollup_type_date (sales_type, sales_date)
+) ENGINE = InnoDB;
+
+INSERT INTO daily_sales_rollup (sales_date, product_id, sales_type, order_count, units, revenue)
+SELECT sales_date, COALESCE(product_id, 0), COALESCE(sales_type, ''), COUNT(*), SUM(quantity), SUM(total_cost)
+FROM orders
+WHERE sales_date IS NOT NULL
+GROUP BY sales_date, COALESCE(product_id, 0), COALESCE(sales_type, '');
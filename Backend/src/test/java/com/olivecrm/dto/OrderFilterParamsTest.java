@@ -0,0 +1,77 @@
+package com.olivecrm.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OrderFilterParamsTest {
+
+    private static final LocalDate JAN_5 = LocalDate.of(2023, 1, 5);
+    private static final LocalDate JAN_9 = LocalDate.of(2023, 1, 9);
+
+    @Test
+    void parsesTotalCostWithOrWithoutDollarSign() {
+        assertEquals(12.5, withTotalCost("$12.50").parseTotalCost());
+        assertEquals(12.5, withTotalCost(" 12.5 ").parseTotalCost());
+        assertNull(withTotalCost("").parseTotalCost());
+        assertNull(withTotalCost(null).parseTotalCost());
+        assertNull(withTotalCost("twelve").parseTotalCost());
+    }
+
+    @Test
+    void singleDateAppliesOnlyForSingleType() {
+        OrderFilterParams filters = withDates("single", JAN_5, JAN_5, JAN_9);
+
+        assertEquals(JAN_5, filters.effectiveSingleDate());
+        assertNull(filters.effectiveStartDate());
+        assertNull(filters.effectiveEndDate());
+        assertEquals(JAN_5, filters.rangeStart());
+        assertEquals(JAN_5, filters.rangeEnd());
+    }
+
+    @Test
+    void rangeNeedsBothEnds() {
+        OrderFilterParams range = withDates("range", JAN_5, JAN_5, JAN_9);
+        assertNull(range.effectiveSingleDate());
+        assertEquals(JAN_5, range.effectiveStartDate());
+        assertEquals(JAN_9, range.effectiveEndDate());
+        assertEquals(JAN_5, range.rangeStart());
+        assertEquals(JAN_9, range.rangeEnd());
+
+        OrderFilterParams openEnded = withDates("range", null, JAN_5, null);
+        assertNull(openEnded.rangeStart());
+        assertNull(openEnded.rangeEnd());
+    }
+
+    @Test
+    void datesWithoutMatchingTypeAreIgnored() {
+        for (String type : new String[] {null, "", "week"}) {
+            OrderFilterParams filters = withDates(type, JAN_5, JAN_5, JAN_9);
+
+            assertNull(filters.effectiveSingleDate(), type);
+            assertNull(filters.effectiveStartDate(), type);
+            assertNull(filters.rangeStart(), type);
+            assertNull(filters.rangeEnd(), type);
+        }
+        assertNull(withDates("single", null, JAN_5, JAN_9).rangeStart());
+    }
+
+    private static OrderFilterParams withTotalCost(String totalCost) {
+        OrderFilterParams filters = new OrderFilterParams();
+        filters.setTotalCost(totalCost);
+        return filters;
+    }
+
+    private static OrderFilterParams withDates(String type, LocalDate singleDate, LocalDate startDate,
+                                               LocalDate endDate) {
+        OrderFilterParams filters = new OrderFilterParams();
+        filters.setDateFilterType(type);
+        filters.setSingleDate(singleDate);
+        filters.setStartDate(startDate);
+        filters.setEndDate(endDate);
+        return filters;
+    }
+}
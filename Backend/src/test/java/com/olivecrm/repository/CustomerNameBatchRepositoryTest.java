@@ -0,0 +1,57 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.service.CsvOrderRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@Import(CustomerNameBatchRepository.class)
+@Sql("classpath:db/migration/V1__baseline_schema.sql")
+class CustomerNameBatchRepositoryTest {
+
+    @Autowired
+    private CustomerNameBatchRepository customerNameBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void updatesExistingCustomersOnly() {
+        jdbcTemplate.update("INSERT INTO customer (c_id, zipcode, first_name, last_name) VALUES " +
+                "(1, '1000', 'Ann', 'Old'), (2, '2000', NULL, NULL)");
+
+        customerNameBatchRepository.updateNames(List.of(
+                customer(1, "Ann", "New", null),
+                customer(2, "Bob", "Smith", "2500"),
+                customer(3, "Unknown", "Customer", "3000")));
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer", Integer.class));
+        assertCustomer(1, "1000", "Ann", "New");
+        assertCustomer(2, "2500", "Bob", "Smith");
+    }
+
+    private void assertCustomer(int id, String zipcode, String firstName, String lastName) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT zipcode, first_name, last_name FROM customer WHERE c_id = ?", id);
+        assertEquals(zipcode, row.get("zipcode"));
+        assertEquals(firstName, row.get("first_name"));
+        assertEquals(lastName, row.get("last_name"));
+    }
+
+    private static CsvOrderRow customer(int id, String firstName, String lastName, String zipcode) {
+        CsvOrderRow row = new CsvOrderRow();
+        row.setCustomerId(id);
+        row.setNames(firstName, lastName);
+        row.setZipCode(zipcode);
+        return row;
+    }
+}
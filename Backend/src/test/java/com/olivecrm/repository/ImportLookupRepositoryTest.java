@@ -0,0 +1,45 @@
+package com.olivecrm.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@Import(ImportLookupRepository.class)
+@Sql("classpath:db/migration/V1__baseline_schema.sql")
+class ImportLookupRepositoryTest {
+
+    @Autowired
+    private ImportLookupRepository importLookupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countsExistingCustomersAcrossChunks() {
+        List<Object[]> customers = new ArrayList<>();
+        for (int id = 1; id <= 1200; id++) {
+            customers.add(new Object[] {id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO customer (c_id) VALUES (?)", customers);
+
+        // 2500 ids take three IN queries; ids 1..1200 exist
+        Set<Integer> fileIds = new HashSet<>();
+        for (int id = 1; id <= 2500; id++) {
+            fileIds.add(id);
+        }
+
+        assertEquals(1200, importLookupRepository.countExistingCustomers(fileIds));
+        assertEquals(0, importLookupRepository.countExistingCustomers(Set.of()));
+    }
+}
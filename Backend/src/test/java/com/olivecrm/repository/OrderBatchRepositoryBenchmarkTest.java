@@ -0,0 +1,136 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.entity.Customer;
+import com.olivecrm.entity.Order;
+import com.olivecrm.entity.Product;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Before/after measurement of the CSV import's order inserts against a real MySQL: one
+// INSERT round trip per row (what per-entity persist did), JDBC batches as Connector/J
+// sends them by default, and batches rewritten into multi-row INSERTs. MySQL's Com_insert
+// counter shows how many statements reached the server; rows per second are logged.
+@Testcontainers(disabledWithoutDocker = true)
+class OrderBatchRepositoryBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderBatchRepositoryBenchmarkTest.class);
+
+    private static final int ROWS = 5000;
+    private static final int BATCH_SIZE = 100;
+
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0.26");
+
+    private static Customer customer;
+    private static Product product;
+
+    @BeforeAll
+    static void createSchema() throws SQLException {
+        Flyway.configure()
+                .dataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword())
+                .load()
+                .migrate();
+        try (Connection connection = connect(false)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            jdbcTemplate.update("INSERT INTO customer (c_id, zipcode) VALUES (1, '1000')");
+            jdbcTemplate.update("INSERT INTO product (p_id, product_name, product_variant, individual_price) " +
+                    "VALUES (1, 'Olive oil', '1L', 9.5)");
+        }
+        customer = new Customer();
+        customer.setCID(1);
+        product = new Product();
+        product.setPID(1);
+    }
+
+    @Test
+    void rewrittenBatchesReachTheServerAsOneInsertPerBatch() throws SQLException {
+        Run perRow = insert(false, 1);
+        Run batched = insert(false, BATCH_SIZE);
+        Run rewritten = insert(true, BATCH_SIZE);
+
+        logger.info("{} orders: one insert per row {} rows/s, batched {} rows/s, rewritten batches {} rows/s",
+                ROWS, perRow.rowsPerSecond(), batched.rowsPerSecond(), rewritten.rowsPerSecond());
+
+        assertEquals(ROWS, perRow.statements);
+        // Without the flag Connector/J still executes a batch row by row
+        assertEquals(ROWS, batched.statements);
+        assertEquals((ROWS + BATCH_SIZE - 1) / BATCH_SIZE, rewritten.statements);
+    }
+
+    private static Run insert(boolean rewriteBatchedStatements, int batchSize) throws SQLException {
+        List<Order> orders = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Order order = new Order();
+            order.setCustomer(customer);
+            order.setProduct(product);
+            order.setQuantity(1 + i % 5);
+            order.setTotalCost(9.5 * (1 + i % 5));
+            order.setOrderMethod("Online");
+            order.setSalesDate(LocalDate.of(2023, 1, 1).plusDays(i % 365));
+            order.setSalesType("Retail");
+            order.setShippingMethod("Standard");
+            orders.add(order);
+        }
+
+        try (Connection connection = connect(rewriteBatchedStatements)) {
+            connection.setAutoCommit(false);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            OrderBatchRepository repository = new OrderBatchRepository();
+            ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+            ReflectionTestUtils.setField(repository, "jdbcBatchSize", batchSize);
+
+            long insertsBefore = comInsert(jdbcTemplate);
+            long start = System.nanoTime();
+            repository.insertAll(orders);
+            connection.commit();
+            long nanos = System.nanoTime() - start;
+            return new Run(comInsert(jdbcTemplate) - insertsBefore, nanos);
+        }
+    }
+
+    private static long comInsert(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SHOW SESSION STATUS LIKE 'Com_insert'",
+                (resultSet, rowNum) -> resultSet.getLong(2));
+    }
+
+    private static Connection connect(boolean rewriteBatchedStatements) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", mysql.getUsername());
+        properties.setProperty("password", mysql.getPassword());
+        properties.setProperty("rewriteBatchedStatements", String.valueOf(rewriteBatchedStatements));
+        return DriverManager.getConnection(mysql.getJdbcUrl(), properties);
+    }
+
+    private static final class Run {
+        private final long statements;
+        private final long nanos;
+
+        private Run(long statements, long nanos) {
+            this.statements = statements;
+            this.nanos = nanos;
+        }
+
+        private long rowsPerSecond() {
+            return ROWS * 1_000_000_000L / Math.max(nanos, 1);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.entity.Customer;
+import com.olivecrm.entity.Order;
+import com.olivecrm.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The ids read back after each JDBC batch are the ones the orders were stored under
+@JdbcTest(properties = "csv.import.jdbc-batch-size=4")
+@Import(OrderBatchRepository.class)
+@Sql("classpath:db/migration/V1__baseline_schema.sql")
+class OrderBatchRepositoryTest {
+
+    @Autowired
+    private OrderBatchRepository orderBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void insertAllSetsTheGeneratedIds() {
+        jdbcTemplate.update("INSERT INTO customer (c_id) VALUES (1)");
+        jdbcTemplate.update("INSERT INTO product (p_id, individual_price) VALUES (1, 2.5)");
+        Customer customer = new Customer();
+        customer.setCID(1);
+        Product product = new Product();
+        product.setPID(1);
+        // Three batches, the last one partial
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            Order order = new Order();
+            order.setCustomer(customer);
+            order.setProduct(product);
+            order.setQuantity(i);
+            order.setTotalCost(2.5 * i);
+            orders.add(order);
+        }
+
+        orderBatchRepository.insertAll(orders);
+
+        for (Order order : orders) {
+            assertEquals(order.getQuantity(), jdbcTemplate.queryForObject(
+                    "SELECT quantity FROM orders WHERE id = ?", Integer.class, order.getId()));
+        }
+        assertEquals(10, orders.stream().map(Order::getId).collect(Collectors.toSet()).size());
+    }
+}
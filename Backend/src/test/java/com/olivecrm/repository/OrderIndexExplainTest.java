@@ -0,0 +1,164 @@
+package com.olivecrm.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// EXPLAIN on a real MySQL for each query the idx_orders_* indexes were added for (see the
+// V1, V2 and V4 migrations), in the shape the application sends it. Every ORDERS access must
+// go through the intended index rather than a full scan.
+@Testcontainers(disabledWithoutDocker = true)
+class OrderIndexExplainTest {
+
+    private static final int CUSTOMERS = 500;
+    private static final int PRODUCTS = 50;
+    private static final int ORDERS = 50_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+
+    private static final String ROW_SELECT = "SELECT o.id, c.c_id, c.first_name, c.last_name, p.p_id, p.product_name, " +
+            "p.product_variant, o.quantity, o.total_cost, o.order_method, o.sales_date, o.sales_type, o.shipping_method " +
+            "FROM orders o LEFT JOIN customer c ON c.c_id = o.customer_id LEFT JOIN product p ON p.p_id = o.product_id ";
+
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0.26");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createSchema() {
+        Flyway.configure()
+                .dataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword())
+                .load()
+                .migrate();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                mysql.getJdbcUrl() + "?rewriteBatchedStatements=true", mysql.getUsername(), mysql.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        List<Object[]> customers = new ArrayList<>();
+        for (int id = 1; id <= CUSTOMERS; id++) {
+            customers.add(new Object[] {id, String.valueOf(1000 + id)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO customer (c_id, zipcode) VALUES (?, ?)", customers);
+        List<Object[]> products = new ArrayList<>();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            products.add(new Object[] {id, "Product " + id, "1L", 9.5});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product (p_id, product_name, product_variant, individual_price) " +
+                "VALUES (?, ?, ?, ?)", products);
+
+        // Two years of orders; one sale in a hundred is Wholesale
+        List<Object[]> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(new Object[] {1 + i % CUSTOMERS, 1 + (i * 7) % PRODUCTS, 1 + i % 5, 9.5 * (1 + i % 5),
+                    FIRST_DAY.plusDays(i % 730), i % 100 == 0 ? "Wholesale" : "Retail", (long) i * 2654435761L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (customer_id, product_id, quantity, total_cost, order_method, " +
+                "sales_date, sales_type, shipping_method, row_fingerprint) VALUES (?, ?, ?, ?, 'Online', ?, ?, " +
+                "'Standard', ?)", orders);
+        jdbcTemplate.execute("ANALYZE TABLE orders");
+    }
+
+    @Test
+    void customerFilterUsesCustomerDateIndex() {
+        assertOrdersIndex(Set.of("idx_orders_customer_date"),
+                ROW_SELECT + "WHERE o.customer_id = 7 ORDER BY o.sales_date DESC, o.id DESC LIMIT 50");
+        assertOrdersIndex(Set.of("idx_orders_customer_date"),
+                "SELECT o.id FROM orders o WHERE o.customer_id = 7");
+    }
+
+    @Test
+    void customerAndDateRangeUseCustomerDateIndex() {
+        assertOrdersIndex(Set.of("idx_orders_customer_date"),
+                ROW_SELECT + "WHERE o.customer_id = 7 AND o.sales_date >= '2022-03-01' AND o.sales_date <= '2022-06-30'");
+    }
+
+    @Test
+    void spendingPerCustomerReadsOnlyTheCustomerDateIndex() {
+        Map<String, Object> plan = assertOrdersIndex(Set.of("idx_orders_customer_date"),
+                "SELECT o.customer_id, SUM(o.total_cost) FROM orders o GROUP BY o.customer_id");
+        assertTrue(String.valueOf(plan.get("Extra")).contains("Using index"), plan.toString());
+    }
+
+    @Test
+    void dateRangeUsesADateIndex() {
+        assertOrdersIndex(Set.of("idx_orders_date_customer", "idx_orders_date_id"),
+                ROW_SELECT + "WHERE o.sales_date >= '2022-03-01' AND o.sales_date <= '2022-03-07'");
+        assertOrdersIndex(Set.of("idx_orders_date_customer", "idx_orders_date_id"),
+                ROW_SELECT + "WHERE o.sales_date = '2022-03-01'");
+    }
+
+    @Test
+    void activeCustomersReadOnlyTheDateCustomerIndex() {
+        Map<String, Object> plan = assertOrdersIndex(Set.of("idx_orders_date_customer"),
+                "SELECT DISTINCT o.customer_id FROM orders o " +
+                "WHERE o.sales_date >= '2023-12-01' AND o.sales_date <= '2023-12-31'");
+        assertTrue(String.valueOf(plan.get("Extra")).contains("Using index"), plan.toString());
+    }
+
+    @Test
+    void productFilterUsesProductDateIndex() {
+        assertOrdersIndex(Set.of("idx_orders_product_date"),
+                ROW_SELECT + "WHERE (o.product_id IN (3))");
+        assertOrdersIndex(Set.of("idx_orders_product_date"),
+                ROW_SELECT + "WHERE (o.product_id IN (3, 4)) AND o.sales_date >= '2022-03-01' " +
+                "AND o.sales_date <= '2022-06-30'");
+    }
+
+    @Test
+    void salesTypeFilterUsesTypeDateIndex() {
+        assertOrdersIndex(Set.of("idx_orders_type_date"),
+                ROW_SELECT + "WHERE o.sales_type = 'Wholesale'");
+        assertOrdersIndex(Set.of("idx_orders_type_date"),
+                ROW_SELECT + "WHERE o.sales_type = 'Wholesale' AND o.sales_date >= '2022-03-01' " +
+                "AND o.sales_date <= '2022-06-30'");
+    }
+
+    @Test
+    void keysetSlicesUseDateIdIndex() {
+        assertOrdersIndex(Set.of("idx_orders_date_id"),
+                ROW_SELECT + "ORDER BY o.sales_date DESC, o.id DESC LIMIT 50");
+        assertOrdersIndex(Set.of("idx_orders_date_id"),
+                ROW_SELECT + "WHERE o.sales_date < '2023-06-01' OR o.sales_date = '2023-06-01' AND o.id < 40000 " +
+                "OR o.sales_date IS NULL ORDER BY o.sales_date DESC, o.id DESC LIMIT 50");
+    }
+
+    @Test
+    void fingerprintLookupUsesFingerprintIndex() {
+        assertOrdersIndex(Set.of("idx_orders_row_fingerprint"),
+                "SELECT row_fingerprint FROM orders WHERE row_fingerprint IN (2654435761, 5308871522, 42)");
+    }
+
+    @Test
+    void dailySalesRollupIsInnoDb() {
+        assertEquals("InnoDB", jdbcTemplate.queryForObject(
+                "SELECT engine FROM information_schema.tables WHERE table_schema = DATABASE() " +
+                "AND table_name = 'daily_sales_rollup'", String.class));
+    }
+
+    // Returns the EXPLAIN row of ORDERS after checking it is not a full scan of the table
+    private static Map<String, Object> assertOrdersIndex(Set<String> expectedIndexes, String sql) {
+        Map<String, Object> plan = jdbcTemplate.queryForList("EXPLAIN " + sql).stream()
+                .filter(row -> "o".equals(row.get("table")) || "orders".equals(row.get("table")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No ORDERS row in the plan of " + sql));
+        assertNotEquals("ALL", plan.get("type"), sql + "\n" + plan);
+        assertTrue(expectedIndexes.contains(String.valueOf(plan.get("key"))), sql + "\n" + plan);
+        return plan;
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.dto.OrderRowDTO;
+import com.olivecrm.entity.Customer;
+import com.olivecrm.entity.Order;
+import com.olivecrm.entity.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Statement counts of the order row listing, from Hibernate's statistics: a page costs one
+// joined select plus one count, however many customers and products its rows refer to,
+// where the same page of Order entities costs a select per distinct customer and product.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderRepositoryImplTest {
+
+    private static final int CUSTOMERS = 12;
+    private static final int PRODUCTS = 7;
+    private static final int ORDERS = 60;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final Map<Integer, String> productNames = new HashMap<>();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void createOrders() {
+        Customer[] customers = new Customer[CUSTOMERS];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers[i] = new Customer();
+            customers[i].setCID(i + 1);
+            customers[i].setFirst_name("First " + (i + 1));
+            entityManager.persist(customers[i]);
+        }
+        Product[] products = new Product[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            products[i] = new Product();
+            products[i].setProductName("Product " + (i + 1));
+            products[i].setProductVariant("1L");
+            products[i].setIndividualPrice(9.5);
+            entityManager.persist(products[i]);
+            productNames.put(products[i].getPID(), products[i].getProductName());
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setCustomer(customers[i % CUSTOMERS]);
+            order.setProduct(products[i % PRODUCTS]);
+            order.setQuantity(1);
+            order.setTotalCost(9.5);
+            order.setSalesType(i % 2 == 0 ? "Retail" : "Wholesale");
+            order.setSalesDate(LocalDate.of(2023, 1, 1).plusDays(i));
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageIsOneSelectPlusOneCount() {
+        Page<OrderRowDTO> page = orderRepository.findRows(null,
+                PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "salesDate")));
+
+        assertEquals(20, page.getNumberOfElements());
+        assertEquals(ORDERS, page.getTotalElements());
+        // Rows of the page refer to every customer and every product
+        assertEquals(CUSTOMERS, page.stream().map(OrderRowDTO::getCustomerId).distinct().count());
+        assertEquals(PRODUCTS, page.stream().map(OrderRowDTO::getProductId).distinct().count());
+        for (OrderRowDTO row : page) {
+            assertEquals("First " + row.getCustomerId(), row.getCustomerFirstName());
+            assertEquals(productNames.get(row.getProductId()), row.getProductName());
+        }
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+
+    @Test
+    void entityPageLoadsEachCustomerAndProductSeparately() {
+        // The same page read as entities, the path findRows replaced: the eager customer and
+        // product of the orders are selected one by one after the page query
+        Page<Order> page = orderRepository.findAll(PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "salesDate")));
+
+        assertEquals(20, page.getNumberOfElements());
+        assertEquals(ORDERS, page.getTotalElements());
+        assertEquals(1 + CUSTOMERS + PRODUCTS + 1, statistics.getPrepareStatementCount());
+        assertEquals(20 + CUSTOMERS + PRODUCTS, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void filteredPageIsOneSelectPlusOneCount() {
+        Page<OrderRowDTO> page = orderRepository.findRows(OrderSpecifications.hasSalesType("Retail"),
+                PageRequest.of(0, 10, Sort.by("salesDate")));
+
+        assertEquals(10, page.getNumberOfElements());
+        assertEquals(ORDERS / 2, page.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void countIsSkippedWhenTheFirstPageHoldsEveryRow() {
+        Page<OrderRowDTO> page = orderRepository.findRows(null, PageRequest.of(0, 100));
+
+        assertEquals(ORDERS, page.getTotalElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
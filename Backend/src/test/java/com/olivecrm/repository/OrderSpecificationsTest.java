@@ -0,0 +1,231 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.entity.Customer;
+import com.olivecrm.entity.Order;
+import com.olivecrm.entity.Product;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// The WHERE clause OrderSpecifications.byFilters makes Hibernate generate, captured with a
+// StatementInspector: only the supplied filters appear, each on a bare ORDERS column the
+// idx_orders_* indexes can serve, and neither CUSTOMER nor PRODUCT is joined. Hibernate
+// inlines numeric criteria literals and binds the others. The CSV export renders the same
+// conditions() as SQL and must stream the same orders; H2 rejects MySQL's streaming fetch
+// size, so a plain one is used.
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.olivecrm.repository.OrderSpecificationsTest$SqlCapture",
+        "orders.export.fetch-size=100"})
+@Import(OrderExportRepository.class)
+class OrderSpecificationsTest {
+
+    private static final LocalDate JAN_5 = LocalDate.of(2023, 1, 5);
+    private static final LocalDate JAN_6 = LocalDate.of(2023, 1, 6);
+    private static final LocalDate JAN_7 = LocalDate.of(2023, 1, 7);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderExportRepository orderExportRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<Order> orders = new ArrayList<>();
+
+    @BeforeEach
+    void createOrders() {
+        Customer alice = customer(1);
+        Customer bob = customer(2);
+        Product oil = product("Olive oil");
+        Product tapenade = product("Tapenade");
+        orders.add(order(alice, oil, 19.0, "Retail", JAN_5));
+        orders.add(order(alice, tapenade, 4.0, "Wholesale", JAN_6));
+        orders.add(order(bob, oil, 9.5, "Retail", JAN_7));
+        orders.add(order(bob, tapenade, 19.004, "Retail", null));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void noFiltersSelectEveryOrderWithoutWhereClause() {
+        assertEquals(List.of(0, 1, 2, 3), find(OrderSpecifications.byFilters(null, null, null, null, null, null, null)));
+        assertEquals("", where());
+    }
+
+    @Test
+    void customerComparesTheForeignKeyColumn() {
+        assertEquals(List.of(2, 3), find(OrderSpecifications.byFilters(2, null, null, null, null, null, null)));
+        assertEquals("customer_id=2", where());
+    }
+
+    @Test
+    void salesTypeComparesTheColumn() {
+        assertEquals(List.of(1), find(OrderSpecifications.byFilters(null, "Wholesale", null, null, null, null, null)));
+        assertEquals("sales_type=?", where());
+    }
+
+    @Test
+    void totalCostIsARangeOnTheBareColumn() {
+        assertEquals(List.of(0, 3), find(OrderSpecifications.byFilters(null, null, 19.0, null, null, null, null)));
+        assertEquals("total_cost>=18.995 and total_cost<19.005", where());
+    }
+
+    @Test
+    void productIdsCompareTheForeignKeyColumn() {
+        int tapenade = orders.get(1).getProduct().getPID();
+        assertEquals(List.of(1, 3), find(OrderSpecifications.byFilters(null, null, null, List.of(tapenade), null, null, null)));
+        assertEquals("product_id in (" + tapenade + ")", where());
+    }
+
+    @Test
+    void emptyProductIdsAreNoFilter() {
+        assertEquals(List.of(0, 1, 2, 3), find(OrderSpecifications.byFilters(null, null, null, List.of(), null, null, null)));
+        assertEquals("", where());
+    }
+
+    @Test
+    void singleDateIsAnEquality() {
+        assertEquals(List.of(1), find(OrderSpecifications.byFilters(null, null, null, null, JAN_6, null, null)));
+        assertEquals("sales_date=?", where());
+    }
+
+    @Test
+    void dateRangeIsInclusive() {
+        assertEquals(List.of(0, 1), find(OrderSpecifications.byFilters(null, null, null, null, null, JAN_5, JAN_6)));
+        assertEquals("sales_date>=? and sales_date<=?", where());
+    }
+
+    @Test
+    void openEndedDateRanges() {
+        assertEquals(List.of(1, 2), find(OrderSpecifications.byFilters(null, null, null, null, null, JAN_6, null)));
+        assertEquals("sales_date>=?", where());
+        assertEquals(List.of(0), find(OrderSpecifications.byFilters(null, null, null, null, null, null, JAN_5)));
+        assertEquals("sales_date<=?", where());
+    }
+
+    @Test
+    void combinedFiltersAreAndedInOrder() {
+        int oil = orders.get(0).getProduct().getPID();
+        assertEquals(List.of(0), find(OrderSpecifications.byFilters(
+                1, "Retail", 19.0, List.of(oil), null, JAN_5, JAN_7)));
+        assertEquals("customer_id=1 and sales_type=? and total_cost>=18.995 and total_cost<19.005 "
+                + "and (product_id in (" + oil + ")) and sales_date>=? and sales_date<=?", where());
+
+        assertEquals(List.of(2), find(OrderSpecifications.byFilters(2, "Retail", null, null, JAN_7, null, null)));
+        assertEquals("customer_id=2 and sales_type=? and sales_date=?", where());
+    }
+
+    @Test
+    void undatedMatchesOrdersWithoutSalesDate() {
+        assertEquals(List.of(3), find(OrderSpecifications.undated()));
+        assertEquals("sales_date is null", where());
+    }
+
+    @Test
+    void exportStreamsTheOrdersByFiltersFinds() {
+        int oil = orders.get(0).getProduct().getPID();
+        int tapenade = orders.get(1).getProduct().getPID();
+        assertSameExport(List.of(0, 1, 2, 3), null, null, null, null, null, null, null);
+        assertSameExport(List.of(2, 3), 2, null, null, null, null, null, null);
+        assertSameExport(List.of(1), null, "Wholesale", null, null, null, null, null);
+        assertSameExport(List.of(0, 3), null, null, 19.0, null, null, null, null);
+        assertSameExport(List.of(0, 2), null, null, null, List.of(oil), null, null, null);
+        assertSameExport(List.of(0, 1, 2, 3), null, null, null, List.of(oil, tapenade), null, null, null);
+        assertSameExport(List.of(1), null, null, null, null, JAN_6, null, null);
+        assertSameExport(List.of(0, 1), null, null, null, null, null, JAN_5, JAN_6);
+        assertSameExport(List.of(1, 2), null, null, null, null, null, JAN_6, null);
+        assertSameExport(List.of(0), 1, "Retail", 19.0, List.of(oil), null, JAN_5, JAN_7);
+        assertSameExport(List.of(), 1, "Retail", null, null, JAN_6, null, null);
+    }
+
+    private void assertSameExport(List<Integer> expected, Integer customerId, String salesType, Double totalCost,
+                                  List<Integer> productIds, LocalDate singleDate, LocalDate startDate,
+                                  LocalDate endDate) {
+        assertEquals(expected, find(OrderSpecifications.byFilters(customerId, salesType, totalCost, productIds,
+                singleDate, startDate, endDate)));
+        List<Integer> ids = orders.stream().map(Order::getId).collect(Collectors.toList());
+        List<Integer> exported = new ArrayList<>();
+        orderExportRepository.forEachRow(OrderSpecifications.conditions(customerId, salesType, totalCost, productIds,
+                singleDate, startDate, endDate), row -> exported.add(ids.indexOf(row.getId())));
+        exported.sort(null);
+        assertEquals(expected, exported);
+    }
+
+    // Indexes into orders of the matching rows
+    private List<Integer> find(Specification<Order> specification) {
+        SqlCapture.statements.clear();
+        List<Integer> ids = orders.stream().map(Order::getId).collect(Collectors.toList());
+        return orderRepository.findAll(specification).stream()
+                .map(order -> ids.indexOf(order.getId()))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    // WHERE clause of the captured ORDERS select, without table aliases
+    private static String where() {
+        String select = SqlCapture.statements.stream()
+                .filter(sql -> sql.contains(" from orders "))
+                .findFirst()
+                .orElseThrow();
+        assertFalse(select.contains(" join "), select);
+        int where = select.indexOf(" where ");
+        if (where < 0) {
+            return "";
+        }
+        return select.substring(where + " where ".length())
+                .replaceAll("\\b[a-z]\\w*_\\.", "")
+                .trim();
+    }
+
+    private Customer customer(int id) {
+        Customer customer = new Customer();
+        customer.setCID(id);
+        return entityManager.persist(customer);
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setProductVariant("1L");
+        product.setIndividualPrice(9.5);
+        return entityManager.persist(product);
+    }
+
+    private Order order(Customer customer, Product product, double totalCost, String salesType, LocalDate salesDate) {
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setProduct(product);
+        order.setQuantity(1);
+        order.setTotalCost(totalCost);
+        order.setSalesType(salesType);
+        order.setSalesDate(salesDate);
+        return entityManager.persist(order);
+    }
+
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> statements = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.olivecrm.repository;
+
+import com.olivecrm.service.CsvOrderRow;
+import com.olivecrm.util.RowFingerprint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// The bulk load merge statements on H2 in MySQL mode. Staging DDL commits, so the tests
+// run without a test transaction and drop the schema afterwards.
+@JdbcTest
+@Import(OrderStagingRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql({"classpath:db/migration/V1__baseline_schema.sql", "classpath:db/migration/V5__daily_sales_rollup.sql"})
+@Sql(statements = "DROP ALL OBJECTS", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class OrderStagingRepositoryTest {
+
+    private static final LocalDate JAN_5 = LocalDate.of(2023, 1, 5);
+    private static final LocalDate JAN_6 = LocalDate.of(2023, 1, 6);
+
+    @Autowired
+    private OrderStagingRepository orderStagingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String table;
+
+    @BeforeEach
+    void createStagingTable() {
+        table = orderStagingRepository.createStagingTable();
+    }
+
+    @Test
+    void mergeProductsInsertsNewProductsAndKeepsTheLastPrice() {
+        jdbcTemplate.update("INSERT INTO product (product_name, product_variant, individual_price) " +
+                "VALUES ('Olive oil', '1L', 5.0)");
+        orderStagingRepository.stage(table, List.of(
+                row(1, JAN_5, 1, "Olive oil", "1L", 1, 9.5),
+                row(2, JAN_5, 1, "Olive oil", "1L", 1, 10.0),
+                row(3, JAN_5, 1, "Tapenade", "200g", 1, 4.0),
+                row(4, JAN_6, 1, "Tapenade", "200g", 1, 3.5)));
+
+        assertEquals(1, orderStagingRepository.mergeProducts(table));
+        assertEquals(10.0, price("Olive oil", "1L"));
+        assertEquals(3.5, price("Tapenade", "200g"));
+
+        // Rerunning the same staged rows adds nothing and leaves the prices
+        assertEquals(0, orderStagingRepository.mergeProducts(table));
+        assertEquals(2, count("product"));
+        assertEquals(10.0, price("Olive oil", "1L"));
+        assertEquals(3.5, price("Tapenade", "200g"));
+    }
+
+    @Test
+    void mergeCustomersKeepsTheLastZipcodeAndOnlyProvidedNames() {
+        jdbcTemplate.update("INSERT INTO customer (c_id, zipcode, first_name, last_name) VALUES " +
+                "(1, '1000', 'Ann', 'Old'), (3, '4000', 'Bob', 'Kept')");
+        CsvOrderRow renamed = row(2, JAN_5, 1, "Olive oil", "1L", 1, 9.5);
+        renamed.setZipCode("2000");
+        renamed.setNames("Ann", "New");
+        CsvOrderRow newCustomer = row(3, JAN_5, 2, "Olive oil", "1L", 1, 9.5);
+        newCustomer.setZipCode("3000");
+        orderStagingRepository.stage(table, List.of(
+                row(1, JAN_5, 1, "Olive oil", "1L", 1, 9.5),
+                renamed,
+                newCustomer,
+                row(4, JAN_6, 2, "Olive oil", "1L", 1, 9.5),
+                row(5, JAN_6, 3, "Olive oil", "1L", 1, 9.5)));
+
+        for (int run = 0; run < 2; run++) {
+            orderStagingRepository.mergeCustomers(table);
+
+            assertEquals(3, count("customer"));
+            assertEquals(Arrays.asList("2000", "Ann", "New"), customer(1));
+            assertEquals(Arrays.asList("3000", null, null), customer(2));
+            assertEquals(Arrays.asList("4000", "Bob", "Kept"), customer(3));
+        }
+    }
+
+    @Test
+    void insertOrdersWritesEveryRowInFileOrder() {
+        stageAndMerge(List.of(
+                row(1, JAN_5, 1, "Olive oil", "1L", 2, 9.5),
+                row(2, JAN_6, 2, "Tapenade", "200g", 1, 4.0),
+                row(3, JAN_5, 1, "Olive oil", "1L", 2, 9.5)));
+
+        assertEquals(3, orderStagingRepository.insertOrders(table, false));
+
+        List<Integer> customers = jdbcTemplate.queryForList("SELECT customer_id FROM orders ORDER BY id", Integer.class);
+        assertEquals(List.of(1, 2, 1), customers);
+        assertEquals(19.0, jdbcTemplate.queryForObject(
+                "SELECT total_cost FROM orders ORDER BY id LIMIT 1", Double.class));
+    }
+
+    @Test
+    void insertOrdersSkipsKnownRowsOnRerun() {
+        stageAndMerge(List.of(
+                row(1, JAN_5, 1, "Olive oil", "1L", 2, 9.5),
+                row(2, JAN_6, 2, "Tapenade", "200g", 1, 4.0),
+                row(3, JAN_5, 1, "Olive oil", "1L", 2, 9.5)));
+
+        // Row 3 repeats row 1 within the file
+        assertEquals(2, orderStagingRepository.insertOrders(table, true));
+        assertEquals(0, orderStagingRepository.insertOrders(table, true));
+        assertEquals(2, count("orders"));
+    }
+
+    @Test
+    void addToDailyRollupMatchesTheInsertedOrders() {
+        CsvOrderRow wholesale = row(3, JAN_5, 2, "Olive oil", "1L", 4, 9.0);
+        wholesale.setSalesType("Wholesale");
+        CsvOrderRow noType = row(5, JAN_6, 2, "Tapenade", "200g", 1, 4.0);
+        noType.setSalesType(null);
+        stageAndMerge(List.of(
+                row(1, JAN_5, 1, "Olive oil", "1L", 2, 9.5),
+                row(2, JAN_5, 1, "Olive oil", "1L", 1, 9.5),
+                wholesale,
+                row(4, JAN_5, 1, "Olive oil", "1L", 2, 9.5),
+                noType,
+                row(6, null, 1, "Tapenade", "200g", 1, 4.0)));
+
+        for (int run = 0; run < 2; run++) {
+            orderStagingRepository.addToDailyRollup(table, true);
+            orderStagingRepository.insertOrders(table, true);
+
+            // Row 4 repeats row 1; the undated row 6 is an order but not rolled up
+            assertEquals(5, count("orders"));
+            assertRollupMatchesOrders();
+        }
+        assertEquals(List.of(List.of(2L, 3L, 28.5)), rows("SELECT order_count, units, revenue " +
+                "FROM daily_sales_rollup WHERE sales_date = '2023-01-05' AND sales_type = 'Retail'"));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "SELECT order_count FROM daily_sales_rollup WHERE sales_date = ? AND sales_type = ''",
+                Long.class, JAN_6));
+    }
+
+    @Test
+    void addToDailyRollupWithoutSkipCountsEveryRerun() {
+        stageAndMerge(List.of(
+                row(1, JAN_5, 1, "Olive oil", "1L", 2, 9.5),
+                row(2, JAN_5, 1, "Olive oil", "1L", 2, 9.5)));
+
+        for (int run = 0; run < 2; run++) {
+            orderStagingRepository.addToDailyRollup(table, false);
+            orderStagingRepository.insertOrders(table, false);
+
+            assertRollupMatchesOrders();
+        }
+        assertEquals(4L, jdbcTemplate.queryForObject("SELECT order_count FROM daily_sales_rollup", Long.class));
+    }
+
+    @Test
+    void dropStagingTableRemovesIt() {
+        orderStagingRepository.dropStagingTable(table);
+
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT MAX(table_name) FROM information_schema.tables WHERE table_name = ?", String.class, table));
+    }
+
+    private void stageAndMerge(List<CsvOrderRow> rows) {
+        orderStagingRepository.stage(table, rows);
+        orderStagingRepository.mergeProducts(table);
+        orderStagingRepository.mergeCustomers(table);
+    }
+
+    // The rollup must equal what the V5 migration would compute from ORDERS
+    private void assertRollupMatchesOrders() {
+        assertEquals(
+                rows("SELECT sales_date, COALESCE(product_id, 0), COALESCE(sales_type, ''), " +
+                        "COUNT(*), SUM(quantity), SUM(total_cost) FROM orders WHERE sales_date IS NOT NULL " +
+                        "GROUP BY sales_date, COALESCE(product_id, 0), COALESCE(sales_type, '') ORDER BY 1, 2, 3"),
+                rows("SELECT sales_date, product_id, sales_type, order_count, units, revenue " +
+                        "FROM daily_sales_rollup ORDER BY 1, 2, 3"));
+    }
+
+    private List<List<Object>> rows(String sql) {
+        return jdbcTemplate.queryForList(sql).stream()
+                .map(row -> new ArrayList<>(row.values()))
+                .collect(Collectors.toList());
+    }
+
+    private double price(String name, String variant) {
+        return jdbcTemplate.queryForObject("SELECT individual_price FROM product " +
+                "WHERE product_name = ? AND product_variant = ?", Double.class, name, variant);
+    }
+
+    private List<Object> customer(int id) {
+        return new ArrayList<>(jdbcTemplate.queryForMap(
+                "SELECT zipcode, first_name, last_name FROM customer WHERE c_id = ?", id).values());
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static CsvOrderRow row(int rowNumber, LocalDate salesDate, int customerId, String productName,
+                                   String productVariant, int quantity, double price) {
+        CsvOrderRow row = new CsvOrderRow();
+        row.setRowNumber(rowNumber);
+        row.setSalesDate(salesDate);
+        row.setSalesType("Retail");
+        row.setOrderMethod("Online");
+        row.setCustomerId(customerId);
+        row.setShippingMethod("Standard");
+        row.setProductName(productName);
+        row.setProductVariant(productVariant);
+        row.setQuantity(quantity);
+        row.setPrice(price);
+        row.setProductPrice(price);
+        row.setFingerprint(RowFingerprint.of(salesDate, customerId, productName, productVariant, quantity,
+                row.getTotalCost()));
+        return row;
+    }
+}
@@ -0,0 +1,102 @@
+package com.olivecrm.service;
+
+import com.olivecrm.repository.OrderFingerprintRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Fingerprints 1..1500 are stored and the file chunks carry 2000 rows from 1000 on, so each
+// chunk is looked up in two IN queries and starts with rows that are already stored
+@JdbcTest(properties = "orders.fingerprint.fetch-size=100")
+@Import(OrderFingerprintRepository.class)
+@Sql("classpath:db/migration/V1__baseline_schema.sql")
+class DuplicateRowFilterTest {
+
+    private static final int STORED = 1500;
+
+    @Autowired
+    private OrderFingerprintRepository orderFingerprintRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void storeFingerprints() {
+        List<Object[]> orders = new ArrayList<>();
+        for (long fingerprint = 1; fingerprint <= STORED; fingerprint++) {
+            orders.add(new Object[] {fingerprint});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (quantity, total_cost, row_fingerprint) VALUES (1, 1, ?)", orders);
+    }
+
+    @Test
+    void lookupsDropStoredAndRepeatedRows() {
+        DuplicateRowFilter duplicates = new DuplicateRowFilter(orderFingerprintRepository, 0);
+
+        List<CsvOrderRow> chunk = rows(1000, 3000);
+        chunk.addAll(rows(2990, 3000));
+        assertEquals(fingerprints(1501, 3000), fingerprints(duplicates.removeKnown(chunk)));
+        assertEquals(501 + 10, duplicates.getDuplicatesSkipped());
+    }
+
+    @Test
+    void laterChunksSeeRowsWrittenByEarlierOnes() {
+        assertLaterChunksSeeWrittenRows(new DuplicateRowFilter(orderFingerprintRepository, 0));
+    }
+
+    @Test
+    void bloomFilterBuiltPartwayGivesTheSameResult() {
+        // Built while checking the second chunk, after the first chunk was written
+        assertLaterChunksSeeWrittenRows(new DuplicateRowFilter(orderFingerprintRepository, 2500));
+    }
+
+    @Test
+    void bloomFilterBuiltFromTheStartGivesTheSameResult() {
+        assertLaterChunksSeeWrittenRows(new DuplicateRowFilter(orderFingerprintRepository, 1));
+    }
+
+    private void assertLaterChunksSeeWrittenRows(DuplicateRowFilter duplicates) {
+        List<CsvOrderRow> first = duplicates.removeKnown(rows(1000, 3000));
+        assertEquals(fingerprints(1501, 3000), fingerprints(first));
+        write(first);
+        duplicates.remember(first);
+
+        assertEquals(List.of(), duplicates.removeKnown(rows(1000, 3000)));
+        List<CsvOrderRow> third = duplicates.removeKnown(rows(2500, 3500));
+        assertEquals(fingerprints(3000, 3500), fingerprints(third));
+        assertEquals(501 + 2000 + 500, duplicates.getDuplicatesSkipped());
+    }
+
+    private void write(List<CsvOrderRow> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO orders (quantity, total_cost, row_fingerprint) VALUES (1, 1, ?)",
+                rows.stream().map(row -> new Object[] {row.getFingerprint()}).collect(Collectors.toList()));
+    }
+
+    private static List<CsvOrderRow> rows(long from, long to) {
+        List<CsvOrderRow> rows = new ArrayList<>();
+        for (long fingerprint = from; fingerprint < to; fingerprint++) {
+            CsvOrderRow row = new CsvOrderRow();
+            row.setFingerprint(fingerprint);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<Long> fingerprints(long from, long to) {
+        return fingerprints(rows(from, to));
+    }
+
+    private static List<Long> fingerprints(List<CsvOrderRow> rows) {
+        return rows.stream().map(CsvOrderRow::getFingerprint).collect(Collectors.toList());
+    }
+}
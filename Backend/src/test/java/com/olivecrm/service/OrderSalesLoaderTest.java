@@ -0,0 +1,225 @@
+package com.olivecrm.service;
+
+import com.olivecrm.entity.Order;
+import com.olivecrm.repository.OrderSalesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Orders written while OrderSalesLoader scans must end up in the loaded copy exactly once,
+// whether their ids are above the scan's mark or not. The copy here is the sorted list of
+// order costs, and writes during the scan go through connections of their own, so they
+// commit after the snapshot was taken. No test transaction, so those writes are visible.
+@JdbcTest(properties = "orders.sales.fetch-size=100")
+@Import(OrderSalesRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql("classpath:db/migration/V1__baseline_schema.sql")
+@Sql(statements = "DROP ALL OBJECTS", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class OrderSalesLoaderTest {
+
+    @Autowired
+    private OrderSalesRepository orderSalesRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private OrderSalesLoader<List<Double>> loader;
+    private IntConsumer duringScan;
+    private int scans;
+
+    @BeforeEach
+    void createLoader() {
+        for (double cost = 1; cost <= 5; cost++) {
+            insert(cost);
+        }
+        duringScan = mark -> { };
+        loader = new OrderSalesLoader<>("order costs", orderSalesRepository, transactionManager, mark -> {
+            scans++;
+            List<Double> costs = new ArrayList<>();
+            orderSalesRepository.forEachOrderValue(mark, (productId, salesType, totalCost) -> costs.add(totalCost));
+            duringScan.accept(mark);
+            Collections.sort(costs);
+            return costs;
+        }, (costs, event) -> {
+            for (int i = 0; i < event.size(); i++) {
+                if (!event.isRemoval()) {
+                    costs.add(event.getCost(i));
+                } else if (!costs.remove(event.getCost(i))) {
+                    return null;
+                }
+            }
+            Collections.sort(costs);
+            return costs;
+        });
+    }
+
+    @Test
+    void ordersAboveTheMarkAreReplayed() {
+        duringScan = mark -> {
+            loader.onOrderSalesChanged(added(insert(6.0), 6.0));
+            loader.onOrderSalesChanged(added(insert(7.0), 7.0));
+        };
+
+        assertEquals(List.of(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0), loader.get());
+        assertEquals(costsStored(), loader.get());
+        assertEquals(1, scans);
+    }
+
+    @Test
+    void changesTheSnapshotHoldsAreNotAppliedTwice() {
+        int earlier = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Integer.class);
+        // Committed before the load, delivered during it
+        duringScan = mark -> loader.onOrderSalesChanged(added(earlier, 5.0));
+
+        assertEquals(List.of(1.0, 2.0, 3.0, 4.0, 5.0), loader.get());
+    }
+
+    @Test
+    void deletionsOfScannedOrdersAreReplayed() {
+        duringScan = mark -> {
+            delete(mark);
+            loader.onOrderSalesChanged(removed(mark, 5.0));
+        };
+
+        assertEquals(List.of(1.0, 2.0, 3.0, 4.0), loader.get());
+        assertEquals(costsStored(), loader.get());
+    }
+
+    @Test
+    void ordersBelowTheMarkCommittedAfterTheSnapshotAreReplayed() throws SQLException {
+        try (Connection open = dataSource.getConnection()) {
+            open.setAutoCommit(false);
+            // Gets its id before the order committed next, which sets the mark
+            int late = insert(open, 8.0);
+            insert(9.0);
+            duringScan = mark -> {
+                try {
+                    open.commit();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                assertEquals(late + 1, mark);
+                loader.onOrderSalesChanged(added(late, 8.0));
+            };
+
+            assertEquals(List.of(1.0, 2.0, 3.0, 4.0, 5.0, 8.0, 9.0), loader.get());
+            assertEquals(costsStored(), loader.get());
+        }
+    }
+
+    @Test
+    void ordersAddedAndDeletedDuringTheLoadCancelOut() {
+        duringScan = mark -> {
+            int id = insert(6.0);
+            loader.onOrderSalesChanged(added(id, 6.0));
+            delete(id);
+            loader.onOrderSalesChanged(removed(id, 6.0));
+        };
+
+        assertEquals(List.of(1.0, 2.0, 3.0, 4.0, 5.0), loader.get());
+    }
+
+    @Test
+    void reloadDuringTheLoadStartsItOver() {
+        duringScan = mark -> {
+            if (scans == 1) {
+                insert(6.0);
+                loader.onOrderSalesChanged(OrderSalesChangedEvent.reload());
+            }
+        };
+
+        assertEquals(List.of(1.0, 2.0, 3.0, 4.0, 5.0, 6.0), loader.get());
+        assertEquals(2, scans);
+    }
+
+    @Test
+    void changesAfterTheLoadApplyDirectly() {
+        loader.get();
+        loader.onOrderSalesChanged(added(insert(6.0), 6.0));
+        loader.onOrderSalesChanged(removed(1, 1.0));
+
+        assertEquals(List.of(2.0, 3.0, 4.0, 5.0, 6.0), loader.getIfLoaded());
+        // A deletion the copy cannot place drops it
+        assertTrue(loader.onOrderSalesChanged(removed(2, 42.0)));
+        assertNull(loader.getIfLoaded());
+    }
+
+    private List<Double> costsStored() {
+        return jdbcTemplate.queryForList("SELECT total_cost FROM orders ORDER BY total_cost", Double.class);
+    }
+
+    // Commits on a connection of its own
+    private int insert(double cost) {
+        try (Connection connection = dataSource.getConnection()) {
+            return insert(connection, cost);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int insert(Connection connection, double cost) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO orders (quantity, total_cost) VALUES (1, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            statement.setDouble(1, cost);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private void delete(int id) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM orders WHERE id = ?")) {
+            statement.setInt(1, id);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static OrderSalesChangedEvent added(int id, double cost) {
+        return OrderSalesChangedEvent.added(Collections.singletonList(order(id, cost)));
+    }
+
+    private static OrderSalesChangedEvent removed(int id, double cost) {
+        return OrderSalesChangedEvent.removed(order(id, cost));
+    }
+
+    private static Order order(int id, double cost) {
+        Order order = new Order();
+        order.setId(id);
+        order.setQuantity(1);
+        order.setTotalCost(cost);
+        return order;
+    }
+}
@@ -0,0 +1,156 @@
+package com.olivecrm.service;
+
+import com.olivecrm.dto.CursorPageDTO;
+import com.olivecrm.dto.OrderRowDTO;
+import com.olivecrm.entity.Customer;
+import com.olivecrm.entity.Order;
+import com.olivecrm.entity.Product;
+import com.olivecrm.repository.DailySalesRollupRepository;
+import com.olivecrm.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Keyset pagination of the order listing: following next cursors from the first page, then
+// prev cursors back from the last, must visit every order exactly once in the order of
+// ORDER BY sales_date DESC, id DESC, whatever the page size. The seek predicates rely on
+// NULL dates sorting last when descending, as MySQL and H2 in MySQL mode do.
+@DataJpaTest
+@Import(OrderService.class)
+class OrderServiceSeekTest {
+
+    private static final LocalDate JAN_5 = LocalDate.of(2023, 1, 5);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private DailySalesRollupRepository dailySalesRollupRepository;
+
+    @MockBean
+    private SalesTimeSeriesCache salesTimeSeriesCache;
+
+    @MockBean
+    private OrderValueDistributionService orderValueDistributionService;
+
+    @BeforeEach
+    void createOrders() {
+        Customer customer = new Customer();
+        customer.setCID(1);
+        entityManager.persist(customer);
+        Product product = new Product();
+        product.setProductName("Olive oil");
+        product.setProductVariant("1L");
+        product.setIndividualPrice(9.5);
+        entityManager.persist(product);
+        // 23 orders over 6 days, several per day, and 5 without a date spread among them
+        for (int i = 0; i < 23; i++) {
+            Order order = new Order();
+            order.setCustomer(customer);
+            order.setProduct(product);
+            order.setQuantity(1);
+            order.setTotalCost(9.5);
+            order.setSalesType(i % 3 == 0 ? "Wholesale" : "Retail");
+            order.setSalesDate(i % 5 == 2 ? null : JAN_5.plusDays((i * 7) % 6));
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagesVisitEveryOrderInListingOrder() {
+        List<Integer> listing = orderRepository.findAll(Sort.by(Sort.Direction.DESC, "salesDate", "id")).stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        assertEquals(23, listing.size());
+        // NULL dates come last
+        for (int id : listing.subList(18, 23)) {
+            assertNull(entityManager.find(Order.class, id).getSalesDate());
+        }
+
+        for (int size = 1; size <= 8; size++) {
+            int pageSize = size;
+            assertPagesMatch(listing, cursor -> orderService.getAllOrders(cursor, pageSize, false));
+        }
+    }
+
+    @Test
+    void filteredPagesVisitEveryMatchingOrderInListingOrder() {
+        List<Integer> listing = orderRepository.findAll(Sort.by(Sort.Direction.DESC, "salesDate", "id")).stream()
+                .filter(order -> order.getSalesType().equals("Retail"))
+                .map(Order::getId)
+                .collect(Collectors.toList());
+
+        for (int size = 1; size <= 5; size++) {
+            int pageSize = size;
+            assertPagesMatch(listing, cursor -> orderService.getOrdersByFilters(null, "Retail", null, null, null,
+                    null, null, cursor, pageSize, false));
+        }
+    }
+
+    @Test
+    void singlePageHasNoCursors() {
+        CursorPageDTO<OrderRowDTO> page = orderService.getAllOrders(null, 50, true);
+
+        assertEquals(23, page.getContent().size());
+        assertEquals(23L, page.getTotalElements());
+        assertNull(page.getNextCursor());
+        assertNull(page.getPrevCursor());
+    }
+
+    private static void assertPagesMatch(List<Integer> listing, Function<String, CursorPageDTO<OrderRowDTO>> fetch) {
+        // Forward from the first page
+        List<Integer> forward = new ArrayList<>();
+        CursorPageDTO<OrderRowDTO> page = fetch.apply(null);
+        assertNull(page.getPrevCursor(), "prev cursor of the first page");
+        while (true) {
+            forward.addAll(ids(page));
+            if (page.getNextCursor() == null) {
+                break;
+            }
+            page = fetch.apply(page.getNextCursor());
+            assertNotNull(page.getPrevCursor(), "prev cursor after a next");
+            assertTrue(!page.getContent().isEmpty(), "page after a next cursor");
+        }
+        assertEquals(listing, forward, "forward pages of size " + page.getSize());
+
+        // Back from the last page
+        LinkedList<Integer> backward = new LinkedList<>(ids(page));
+        while (page.getPrevCursor() != null) {
+            page = fetch.apply(page.getPrevCursor());
+            assertNotNull(page.getNextCursor(), "next cursor after a prev");
+            backward.addAll(0, ids(page));
+        }
+        assertEquals(listing, backward, "backward pages of size " + page.getSize());
+        assertEquals(listing.subList(0, Math.min(page.getSize(), listing.size())), ids(page),
+                "first page reached backwards");
+    }
+
+    private static List<Integer> ids(CursorPageDTO<OrderRowDTO> page) {
+        return page.getContent().stream().map(OrderRowDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,85 @@
+package com.olivecrm.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+// CsvTokenizer against the Scanner.nextLine().split(",") reader it replaced, on an
+// unquoted sales export (the only input the old reader parsed correctly). Not a unit
+// test; run main() from the IDE, or with the test classpath:
+//   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+//   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.olivecrm.util.CsvTokenizerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvTokenizerBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private byte[] csv;
+
+    @Setup
+    public void createFile() {
+        StringBuilder file = new StringBuilder(ROWS * 96);
+        file.append("Row No.,Sale Date,Sale Type,Digital,Customer ID,ZipCode,Shipping Method,Product,Variant,")
+                .append("Quantity,Price,Product Price\n");
+        for (int i = 1; i <= ROWS; i++) {
+            file.append(i).append(",2023-").append(1 + i % 12).append('-').append(1 + i % 28)
+                    .append(",Retail,Online,").append(10_000 + i % 5000).append(',').append(1000 + i % 900)
+                    .append(",Standard,Olive oil ").append(i % 40).append(",1L,").append(1 + i % 5)
+                    .append(',').append(9.5 * (1 + i % 5)).append(",9.5\n");
+        }
+        csv = file.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long scannerSplit(Blackhole blackhole) {
+        long rows = 0;
+        try (Scanner scanner = new Scanner(new ByteArrayInputStream(csv))) {
+            while (scanner.hasNextLine()) {
+                blackhole.consume(scanner.nextLine().split(","));
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public long csvTokenizer(Blackhole blackhole) throws IOException {
+        long rows = 0;
+        try (CsvTokenizer tokenizer = new CsvTokenizer(
+                new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            String[] row;
+            while ((row = tokenizer.nextRow()) != null) {
+                blackhole.consume(row);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CsvTokenizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package com.olivecrm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvTokenizerTest {
+
+    @Test
+    void splitsUnquotedFields() throws IOException {
+        List<String[]> rows = read("1,2023-01-05,Retail\n2,2023-01-06,Wholesale\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] {"1", "2023-01-05", "Retail"}, rows.get(0));
+        assertArrayEquals(new String[] {"2", "2023-01-06", "Wholesale"}, rows.get(1));
+    }
+
+    @Test
+    void keepsDelimitersInsideQuotes() throws IOException {
+        List<String[]> rows = read("1,\"Olive oil, extra virgin\",\"1L\"\n");
+
+        assertArrayEquals(new String[] {"1", "Olive oil, extra virgin", "1L"}, rows.get(0));
+    }
+
+    @Test
+    void unescapesDoubledQuotes() throws IOException {
+        List<String[]> rows = read("\"Jar \"\"large\"\"\",\"\"\"\",\"\"\n");
+
+        assertArrayEquals(new String[] {"Jar \"large\"", "\"", ""}, rows.get(0));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotes() throws IOException {
+        List<String[]> rows = read("1,\"Main St 1\nBuilding B\r\nFloor 2\",x\n2,y,z\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] {"1", "Main St 1\nBuilding B\r\nFloor 2", "x"}, rows.get(0));
+        assertArrayEquals(new String[] {"2", "y", "z"}, rows.get(1));
+    }
+
+    @Test
+    void acceptsCrlfAndCrLineEndings() throws IOException {
+        List<String[]> rows = read("a,b\r\nc,\"d\"\r\ne,f\rg,h");
+
+        assertEquals(4, rows.size());
+        assertArrayEquals(new String[] {"a", "b"}, rows.get(0));
+        assertArrayEquals(new String[] {"c", "d"}, rows.get(1));
+        assertArrayEquals(new String[] {"e", "f"}, rows.get(2));
+        assertArrayEquals(new String[] {"g", "h"}, rows.get(3));
+    }
+
+    @Test
+    void keepsTrailingEmptyField() throws IOException {
+        List<String[]> rows = read("a,b,\nc,,\nd,");
+
+        assertArrayEquals(new String[] {"a", "b", ""}, rows.get(0));
+        assertArrayEquals(new String[] {"c", "", ""}, rows.get(1));
+        assertArrayEquals(new String[] {"d", ""}, rows.get(2));
+    }
+
+    @Test
+    void readsLastRowWithoutLineBreak() throws IOException {
+        List<String[]> rows = read("a,b\nc,d");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] {"c", "d"}, rows.get(1));
+    }
+
+    @Test
+    void returnsNullAtEndOfInput() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a\n"));
+
+        assertArrayEquals(new String[] {"a"}, tokenizer.nextRow());
+        assertNull(tokenizer.nextRow());
+        assertNull(new CsvTokenizer(new StringReader("")).nextRow());
+    }
+
+    @Test
+    void readsFieldsThatSpanBufferRefills() throws IOException {
+        String input = "first-long-field,\"quoted, \"\"long\"\" field\",x\r\nsecond-row,y,z\r\n";
+
+        // Every buffer size from 1 char up cuts fields, quotes and CRLF at a different place
+        for (int bufferSize = 1; bufferSize <= input.length(); bufferSize++) {
+            List<String[]> rows = read(input, bufferSize);
+
+            assertEquals(2, rows.size(), "buffer size " + bufferSize);
+            assertArrayEquals(new String[] {"first-long-field", "quoted, \"long\" field", "x"}, rows.get(0),
+                    "buffer size " + bufferSize);
+            assertArrayEquals(new String[] {"second-row", "y", "z"}, rows.get(1), "buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    void keepsUnterminatedQuotedField() throws IOException {
+        List<String[]> rows = read("a,\"never closed\nb");
+
+        assertArrayEquals(new String[] {"a", "never closed\nb"}, rows.get(0));
+    }
+
+    @Test
+    void readsCsvWriterOutputBackUnchanged() throws IOException {
+        String[] fields = {"plain", "with,comma", "with \"quote\"", "with\nbreak", ""};
+
+        List<String[]> rows = read(CsvWriter.formatRow(fields) + "\r\n");
+
+        assertArrayEquals(fields, rows.get(0));
+    }
+
+    private static List<String[]> read(String input) throws IOException {
+        return read(input, 64 * 1024);
+    }
+
+    private static List<String[]> read(String input, int bufferSize) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(input), ',', bufferSize)) {
+            String[] row;
+            while ((row = tokenizer.nextRow()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,82 @@
+package com.olivecrm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTest {
+
+    @Test
+    void quotesOnlyFieldsThatNeedIt() {
+        assertEquals("1,Olive oil,\"Jar, large\",\"Say \"\"hi\"\"\",\"a\nb\",",
+                CsvWriter.formatRow("1", "Olive oil", "Jar, large", "Say \"hi\"", "a\nb", null));
+    }
+
+    @Test
+    void fixed2MatchesFormatOnTies() {
+        for (double value : new double[] {0.005, 0.015, 0.125, 0.135, 1.005, 1.015, 2.675, 10.235, 19.995,
+                99.995, 1234.565, 0.045, 8.345, 1.115}) {
+            assertFixed2(value);
+            assertFixed2(-value);
+        }
+        for (int cents = 0; cents < 100_000; cents++) {
+            assertFixed2((cents + 0.5) / 100);
+        }
+    }
+
+    @Test
+    void fixed2MatchesFormatJustOffTies() {
+        for (double tie : new double[] {0.005, 1.005, 2.675, 19.995, 1234.565}) {
+            assertFixed2(Math.nextUp(tie));
+            assertFixed2(Math.nextDown(tie));
+            assertFixed2(tie + 1e-7);
+            assertFixed2(tie - 1e-7);
+            assertFixed2(tie + 1e-5);
+            assertFixed2(tie - 1e-5);
+        }
+    }
+
+    @Test
+    void fixed2MatchesFormatOnSignsAndZero() {
+        for (double value : new double[] {0.0, -0.0, -0.001, -0.004, -0.0049, -0.005, -0.006, -1e-300,
+                Double.MIN_VALUE, -Double.MIN_VALUE, -19.0, -9.5, -0.5}) {
+            assertFixed2(value);
+        }
+    }
+
+    @Test
+    void fixed2MatchesFormatOnLargeValues() {
+        for (double value : new double[] {1e7, 1e7 + 0.005, 12_345_678.125, 9_999_999.995, 1e9, 1e9 + 0.5,
+                123_456_789_012.345, 1e15, 1e18, 1.5e20, Double.MAX_VALUE, -1e12 - 0.015}) {
+            assertFixed2(value);
+        }
+    }
+
+    @Test
+    void fixed2MatchesFormatOnRandomOrderTotals() {
+        Random random = new Random(5);
+        for (int i = 0; i < 200_000; i++) {
+            // Prices with up to three decimals, then sums and products of them as totals get
+            double price = Math.round(random.nextDouble() * 1_000_000) / 1000.0;
+            assertFixed2(price);
+            assertFixed2(price * (1 + random.nextInt(20)));
+            assertFixed2(random.nextDouble() * Math.pow(10, random.nextInt(12)) - 50);
+        }
+    }
+
+    @Test
+    void fixed2WritesNonFiniteValuesLikeFormat() {
+        assertFixed2(Double.NaN);
+        assertFixed2(Double.POSITIVE_INFINITY);
+        assertFixed2(Double.NEGATIVE_INFINITY);
+    }
+
+    private static void assertFixed2(double value) {
+        StringBuilder line = new StringBuilder();
+        CsvWriter.appendFixed2(line, value);
+        assertEquals(String.format(Locale.ROOT, "%.2f", value), line.toString(), () -> "value " + value);
+    }
+}
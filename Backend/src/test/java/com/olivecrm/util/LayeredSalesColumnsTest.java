@@ -0,0 +1,146 @@
+package com.olivecrm.util;
+
+import com.olivecrm.enums.TimeBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LayeredSalesColumnsTest {
+
+    private static final int FIRST_DAY = 19_000;
+
+    @Test
+    void layersAggregateLikeRebuiltColumns() {
+        Random random = new Random(42);
+        SalesColumns rebuilt = rows(random, 2_000);
+        LayeredSalesColumns layered = new LayeredSalesColumns(rebuilt);
+        for (int change = 0; change < 50; change++) {
+            if (change % 3 == 2) {
+                SalesColumns removed = someRowsOf(rebuilt, random, 5);
+                rebuilt = rebuilt.remove(removed);
+                layered = layered.withRemoved(removed);
+                assertNotNull(layered);
+            } else {
+                SalesColumns added = rows(random, 20);
+                rebuilt = rebuilt.merge(added);
+                layered = layered.withAdded(added);
+            }
+        }
+
+        assertEquals(rebuilt.size(), layered.size());
+        for (TimeBucket bucket : TimeBucket.values()) {
+            assertSameSeries(rebuilt, layered, FIRST_DAY + 30, FIRST_DAY + 200, null, -1, bucket);
+        }
+        BitSet products = new BitSet();
+        products.set(3);
+        products.set(5);
+        assertSameSeries(rebuilt, layered, Integer.MIN_VALUE, Integer.MAX_VALUE, products, 1, TimeBucket.WEEK);
+    }
+
+    @Test
+    void compactionFoldsTheLayersIntoTheBase() {
+        Random random = new Random(7);
+        SalesColumns base = rows(random, 500);
+        SalesColumns added = rows(random, 40);
+        LayeredSalesColumns layered = new LayeredSalesColumns(base).withAdded(added)
+                .withRemoved(someRowsOf(base, random, 10));
+
+        LayeredSalesColumns compacted = layered.compact();
+
+        assertEquals(0, compacted.layerRows());
+        assertEquals(530, compacted.baseSize());
+        assertSameSeries(layered, compacted, Integer.MIN_VALUE, Integer.MAX_VALUE, null, -1, TimeBucket.DAY);
+    }
+
+    @Test
+    void rebaseKeepsTheChangesMadeDuringCompaction() {
+        Random random = new Random(11);
+        LayeredSalesColumns read = new LayeredSalesColumns(rows(random, 300)).withAdded(rows(random, 10));
+        SalesColumns later = rows(random, 10);
+        LayeredSalesColumns latest = read.withAdded(later);
+
+        LayeredSalesColumns rebased = latest.rebase(read, read.compact());
+
+        assertEquals(310, rebased.baseSize());
+        assertEquals(10, rebased.layerRows());
+        assertSameSeries(latest, rebased, Integer.MIN_VALUE, Integer.MAX_VALUE, null, -1, TimeBucket.MONTH);
+        assertFalse(rebased.isPrefixOf(latest));
+        assertTrue(read.isPrefixOf(latest));
+    }
+
+    @Test
+    void removingAMissingRowReturnsNull() {
+        SalesColumns.Builder base = new SalesColumns.Builder(1);
+        base.add(FIRST_DAY, 1, 2, 19.0, 0);
+        SalesColumns.Builder missing = new SalesColumns.Builder(1);
+        missing.add(FIRST_DAY, 1, 2, 19.5, 0);
+        LayeredSalesColumns layered = new LayeredSalesColumns(base.build());
+
+        assertNull(layered.withRemoved(missing.build()));
+        // The same row cannot go twice
+        LayeredSalesColumns once = layered.withRemoved(base.build());
+        assertNotNull(once);
+        assertNull(once.withRemoved(base.build()));
+        assertEquals(0, once.size());
+    }
+
+    private static SalesColumns rows(Random random, int count) {
+        SalesColumns.Builder builder = new SalesColumns.Builder(count);
+        for (int i = 0; i < count; i++) {
+            int quantity = 1 + random.nextInt(5);
+            builder.add(FIRST_DAY + random.nextInt(365), random.nextInt(8), quantity, quantity * 9.5,
+                    random.nextInt(2));
+        }
+        return builder.build();
+    }
+
+    private static SalesColumns someRowsOf(SalesColumns columns, Random random, int count) {
+        List<int[]> picked = new ArrayList<>();
+        List<Double> costs = new ArrayList<>();
+        int[] index = {0};
+        BitSet chosen = new BitSet();
+        while (chosen.cardinality() < count) {
+            chosen.set(random.nextInt(columns.size()));
+        }
+        columns.forEach((day, productId, quantity, cost, salesType) -> {
+            if (chosen.get(index[0]++)) {
+                picked.add(new int[] {day, productId, quantity, salesType});
+                costs.add(cost);
+            }
+        });
+        SalesColumns.Builder builder = new SalesColumns.Builder(count);
+        for (int i = 0; i < picked.size(); i++) {
+            int[] row = picked.get(i);
+            builder.add(row[0], row[1], row[2], costs.get(i), row[3]);
+        }
+        return builder.build();
+    }
+
+    private static void assertSameSeries(Object expected, Object actual, int startDay, int endDay, BitSet products,
+                                         int salesType, TimeBucket bucket) {
+        assertEquals(series(expected, startDay, endDay, products, salesType, bucket),
+                series(actual, startDay, endDay, products, salesType, bucket));
+    }
+
+    private static List<String> series(Object columns, int startDay, int endDay, BitSet products, int salesType,
+                                       TimeBucket bucket) {
+        List<String> points = new ArrayList<>();
+        SalesColumns.BucketConsumer consumer = (bucketStart, orderCount, units, revenue) ->
+                points.add(bucketStart + ":" + orderCount + ":" + units + ":" + String.format("%.2f", revenue));
+        if (columns instanceof SalesColumns) {
+            ((SalesColumns) columns).aggregate(startDay, endDay, products, salesType, bucket, consumer);
+        } else {
+            ((LayeredSalesColumns) columns).aggregate(startDay, endDay, products, salesType, bucket, consumer);
+        }
+        return points;
+    }
+}
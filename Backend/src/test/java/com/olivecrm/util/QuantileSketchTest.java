@@ -0,0 +1,161 @@
+package com.olivecrm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    @Test
+    void quantilesAreWithinTheRelativeAccuracyOfExactOnes() {
+        // Order values spread over several orders of magnitude, as real ones are
+        double[] values = orderValues(new Random(1), 100_000);
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (double value : values) {
+            sketch.add(value);
+        }
+
+        assertEquals(values.length, sketch.count());
+        assertQuantiles(values, sketch);
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+
+        assertEquals(0, sketch.count());
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertEquals(0, sketch.countAtMost(100));
+    }
+
+    @Test
+    void mergedSketchMatchesOneFedEveryValue() {
+        Random random = new Random(2);
+        double[] first = orderValues(random, 20_000);
+        // The second half covers a different range, so the bucket arrays must grow on merge
+        double[] second = Arrays.stream(orderValues(random, 30_000)).map(value -> value * 50).toArray();
+        QuantileSketch left = new QuantileSketch(ACCURACY);
+        QuantileSketch right = new QuantileSketch(ACCURACY);
+        QuantileSketch both = new QuantileSketch(ACCURACY);
+        for (double value : first) {
+            left.add(value);
+            both.add(value);
+        }
+        for (double value : second) {
+            right.add(value);
+            both.add(value);
+        }
+
+        left.merge(right);
+
+        assertEquals(both.count(), left.count());
+        for (double q : QUANTILES) {
+            assertEquals(both.quantile(q), left.quantile(q), 0.0);
+        }
+        double[] all = new double[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        assertQuantiles(all, left);
+    }
+
+    @Test
+    void mergeRejectsADifferentAccuracy() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new QuantileSketch(0.01).merge(new QuantileSketch(0.02)));
+    }
+
+    @Test
+    void removedValuesNoLongerCount() {
+        double[] values = orderValues(new Random(3), 10_000);
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (double value : values) {
+            sketch.add(value);
+        }
+        // Take the upper half back out
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = sorted.length / 2; i < sorted.length; i++) {
+            assertTrue(sketch.remove(sorted[i]));
+        }
+
+        assertEquals(sorted.length / 2, sketch.count());
+        assertQuantiles(Arrays.copyOf(sorted, sorted.length / 2), sketch);
+    }
+
+    @Test
+    void removingAValueNeverAddedLeavesTheSketchUnchanged() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        sketch.add(10);
+        sketch.add(0);
+
+        assertFalse(sketch.remove(1000));
+        assertFalse(sketch.remove(-5));
+        assertEquals(2, sketch.count());
+        assertTrue(sketch.remove(0));
+        assertFalse(sketch.remove(0));
+        assertEquals(1, sketch.count());
+    }
+
+    @Test
+    void countAtMostMatchesExactCountsAwayFromTheBound() {
+        double[] values = orderValues(new Random(4), 50_000);
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (double value : values) {
+            sketch.add(value);
+        }
+
+        for (double bound : new double[] {10, 25, 50, 100, 250, 1000}) {
+            // Values within the relative accuracy of the bound may land on either side of it
+            long atMostLower = Arrays.stream(values).filter(value -> value <= bound * (1 - 2 * ACCURACY)).count();
+            long atMostUpper = Arrays.stream(values).filter(value -> value <= bound * (1 + 2 * ACCURACY)).count();
+            long counted = sketch.countAtMost(bound);
+            assertTrue(counted >= atMostLower && counted <= atMostUpper,
+                    bound + ": " + counted + " not in [" + atMostLower + ", " + atMostUpper + "]");
+        }
+        assertEquals(values.length, sketch.countAtMost(Double.MAX_VALUE));
+        assertEquals(0, sketch.countAtMost(0));
+    }
+
+    @Test
+    void zeroAndNegativeValuesAreOrderedBeforePositiveOnes() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (double value : new double[] {-20, -5, 0, 0, 5, 20, 40}) {
+            sketch.add(value);
+        }
+
+        assertEquals(-20, sketch.quantile(0), 20 * ACCURACY);
+        assertEquals(0, sketch.quantile(0.5), 0.0);
+        assertEquals(40, sketch.quantile(1), 40 * ACCURACY);
+        assertEquals(4, sketch.countAtMost(0));
+        assertEquals(2, sketch.countAtMost(-1));
+    }
+
+    // Log-normal around a median of 50, like order totals
+    private static double[] orderValues(Random random, int count) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.round(Math.exp(Math.log(50) + random.nextGaussian()) * 100) / 100.0 + 0.01;
+        }
+        return values;
+    }
+
+    // Each sketch quantile is within the relative accuracy of the exact value at its rank
+    private static void assertQuantiles(double[] values, QuantileSketch sketch) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double exact = sorted[(int) (q * (sorted.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertEquals(exact, estimate, exact * ACCURACY, "quantile " + q);
+        }
+    }
+}